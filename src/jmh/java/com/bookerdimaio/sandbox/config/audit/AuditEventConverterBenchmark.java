@@ -0,0 +1,80 @@
+package com.bookerdimaio.sandbox.config.audit;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.actuate.audit.AuditEvent;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting a thousand {@link PersistentAuditEvent}s to {@link AuditEvent}s, to a list or
+ * through a stream. The {@code copying} benchmark is the conversion copying the data of each event to an unsized
+ * map and list, as a reference.
+ * <p>
+ * Run with the {@code gc} profiler of the {@code benchmark} profile to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditEventConverterBenchmark {
+
+    private static final int EVENTS = 1000;
+
+    @Param({"0", "2", "8"})
+    public int dataEntries;
+
+    private final AuditEventConverter auditEventConverter = new AuditEventConverter();
+
+    private List<PersistentAuditEvent> persistentAuditEvents;
+
+    @Setup
+    public void setup() {
+        persistentAuditEvents = new ArrayList<>(EVENTS);
+        Instant now = Instant.now();
+        for (int i = 0; i < EVENTS; i++) {
+            PersistentAuditEvent event = new PersistentAuditEvent();
+            event.setId((long) i);
+            event.setPrincipal("user" + (i % 10));
+            event.setAuditEventDate(now.plusMillis(i));
+            event.setAuditEventType("AUTHENTICATION_SUCCESS");
+            for (int j = 0; j < dataEntries; j++) {
+                event.getData().put("key" + j, "value" + i);
+            }
+            persistentAuditEvents.add(event);
+        }
+    }
+
+    @Benchmark
+    public List<AuditEvent> list() {
+        return auditEventConverter.convertToAuditEvent(persistentAuditEvents);
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        auditEventConverter.convertToAuditEvent(persistentAuditEvents.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public List<AuditEvent> copying() {
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        for (PersistentAuditEvent event : persistentAuditEvents) {
+            Map<String, Object> data = new HashMap<>();
+            for (Map.Entry<String, String> entry : event.getData().entrySet()) {
+                data.put(entry.getKey(), entry.getValue());
+            }
+            auditEvents.add(new AuditEvent(event.getAuditEventDate(), event.getPrincipal(),
+                event.getAuditEventType(), data));
+        }
+        return auditEvents;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the read latency of a cache on a Hazelcast lite member, as the application uses it, with and without
+ * the local tier of the {@link TwoTierCacheManager}, stored on or off the heap.
+ * <p>
+ * The entries are owned by a data member of the same JVM, so that the Hazelcast reads cross the loopback
+ * network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TwoTierCacheBenchmark {
+
+    private static final int ENTRIES = 1000;
+
+    @Param({"hazelcast", "two-tier", "two-tier-off-heap"})
+    public String cacheManager;
+
+    private HazelcastInstance dataMember;
+
+    private HazelcastInstance liteMember;
+
+    private CacheManager manager;
+
+    private Cache cache;
+
+    @Setup
+    public void setup() {
+        dataMember = Hazelcast.newHazelcastInstance(memberConfig(16001, false));
+        liteMember = Hazelcast.newHazelcastInstance(memberConfig(16002, true));
+        HazelcastCacheManager hazelcastCacheManager = new HazelcastCacheManager(liteMember);
+        ApplicationProperties.Cache.Local.LocalCache localCache = new ApplicationProperties.Cache.Local.LocalCache();
+        if ("two-tier-off-heap".equals(cacheManager)) {
+            localCache.setStorage(ApplicationProperties.Cache.Local.LocalCache.Storage.OFF_HEAP);
+        }
+        manager = cacheManager.startsWith("two-tier") ?
+            new TwoTierCacheManager(hazelcastCacheManager,
+                Collections.singletonMap(TwoTierCacheManager.DEFAULT, localCache), new SimpleMeterRegistry()) :
+            hazelcastCacheManager;
+        cache = manager.getCache("benchmark");
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put(i, "value" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (manager instanceof TwoTierCacheManager) {
+            ((TwoTierCacheManager) manager).destroy();
+        }
+        liteMember.shutdown();
+        dataMember.shutdown();
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(ThreadLocalRandom.current().nextInt(ENTRIES));
+    }
+
+    private static Config memberConfig(int port, boolean liteMember) {
+        Config config = new Config();
+        config.setInstanceName("two-tier-cache-benchmark-" + port);
+        config.setLiteMember(liteMember);
+        config.getNetworkConfig().setPort(port).setPortAutoIncrement(false);
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true)
+            .addMember("127.0.0.1:16001").addMember("127.0.0.1:16002");
+        return config;
+    }
+}
@@ -0,0 +1,124 @@
+package com.bookerdimaio.sandbox.repository;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.config.audit.AuditEventConverter;
+import com.bookerdimaio.sandbox.config.cache.QueryResultCache;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the write and read throughput of the audit event data layouts, see
+ * {@link ApplicationProperties.Audit.DataStorage}: a row per data entry in its own table, or a JSON column in the
+ * event row.
+ * <p>
+ * Runs on an in-memory H2 database with the schema of the Liquibase migrations, so it measures the statements and
+ * the JDBC round trips rather than the storage engine. Writes are batches of the default batch size, reads stream
+ * all the events of a principal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditEventStorageBenchmark {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final int READ_EVENTS = 1000;
+
+    @Param({"TABLE", "COLUMN"})
+    public ApplicationProperties.Audit.DataStorage dataStorage;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private AsyncAuditEventRepository writeRepository;
+
+    private AuditEventStreamRepository streamRepository;
+
+    @Setup
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:audit-" + dataStorage + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create sequence sequence_generator start with 1050 increment by 50");
+        jdbcTemplate.execute("create table jhi_persistent_audit_event (event_id bigint primary key, " +
+            "principal varchar(50) not null, event_date timestamp, event_type varchar(255), event_data longvarchar)");
+        jdbcTemplate.execute("create index idx_persistent_audit_event on jhi_persistent_audit_event " +
+            "(principal, event_date)");
+        jdbcTemplate.execute("create table jhi_persistent_audit_evt_data (event_id bigint not null, " +
+            "name varchar(150) not null, value varchar(255), primary key (event_id, name), " +
+            "foreign key (event_id) references jhi_persistent_audit_event (event_id))");
+        jdbcTemplate.execute("create index idx_persistent_audit_evt_data on jhi_persistent_audit_evt_data " +
+            "(event_id)");
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAudit().setDataStorage(dataStorage);
+        // Not started: batches are written by the benchmark thread
+        writeRepository = new AsyncAuditEventRepository(null, new AuditEventConverter(), dataSource,
+            transactionManager, new StaticListableBeanFactory().getBeanProvider(QueryResultCache.class),
+            applicationProperties, new SimpleMeterRegistry());
+        streamRepository = new AuditEventStreamRepository(dataSource, transactionManager, applicationProperties);
+        for (int i = 0; i < READ_EVENTS; i += BATCH_SIZE) {
+            writeRepository.write(batch("reader"));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void deleteWrittenEvents() {
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in " +
+                "(select event_id from jhi_persistent_audit_event where principal = 'writer')");
+            return jdbcTemplate.update("delete from jhi_persistent_audit_event where principal = 'writer'");
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void write() {
+        writeRepository.write(batch("writer"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READ_EVENTS)
+    public void read(Blackhole blackhole) {
+        streamRepository.forEach("reader", null, null, blackhole::consume);
+    }
+
+    private static List<PersistentAuditEvent> batch(String principal) {
+        List<PersistentAuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        Instant now = Instant.now();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            PersistentAuditEvent event = new PersistentAuditEvent();
+            event.setPrincipal(principal);
+            event.setAuditEventDate(now);
+            event.setAuditEventType("AUTHENTICATION_SUCCESS");
+            event.getData().put("remoteAddress", "127.0.0." + (i % 256));
+            event.getData().put("sessionId", "4F2E8A0C1B7D6E5F" + i);
+            batch.add(event);
+        }
+        return batch;
+    }
+}
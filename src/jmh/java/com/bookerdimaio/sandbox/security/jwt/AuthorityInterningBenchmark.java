@@ -0,0 +1,61 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the allocation rate of building a JWT authentication by splitting the {@code auth} claim on every
+ * request with the interned authorities of {@link AuthoritiesInterner}.
+ * <p>
+ * Run with {@code -prof gc} to get the {@code gc.alloc.rate.norm} figures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorityInterningBenchmark {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Param({
+        "ROLE_USER",
+        "ROLE_ADMIN,ROLE_USER",
+        "ROLE_ADMIN,ROLE_USER,ROLE_AUDITOR,ROLE_REPORTER,ROLE_OPERATOR,ROLE_SUPPORT"
+    })
+    public String claim;
+
+    private AuthoritiesInterner interner;
+
+    @Setup
+    public void setup() {
+        interner = new AuthoritiesInterner(1024);
+    }
+
+    @Benchmark
+    public Authentication splitClaim() {
+        Collection<? extends GrantedAuthority> authorities = Arrays.stream(claim.split(","))
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+        User principal = new User("benchmark-user", "", authorities);
+        return new UsernamePasswordAuthenticationToken(principal, TOKEN, authorities);
+    }
+
+    @Benchmark
+    public Authentication internClaim() {
+        List<GrantedAuthority> authorities = interner.intern(claim);
+        User principal = new User("benchmark-user", "", authorities);
+        return new JWTAuthenticationToken(principal, TOKEN, authorities);
+    }
+}
@@ -0,0 +1,62 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixtures shared by the JWT benchmarks.
+ */
+final class JWTBenchmarkSupport {
+
+    static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private JWTBenchmarkSupport() {
+    }
+
+    static JHipsterProperties jHipsterProperties() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        return jHipsterProperties;
+    }
+
+    static TokenProvider tokenProvider(boolean authenticationCache) throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getAuthenticationCache().setEnabled(authenticationCache);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties(), applicationProperties,
+            new SimpleMeterRegistry());
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    /**
+     * Build an authentication whose token size is driven by the length of its login and its number of authorities.
+     *
+     * @param loginLength the length of the login.
+     * @param authorityCount the number of authorities, the first ones being the well-known authorities.
+     * @return the authentication.
+     */
+    static Authentication authentication(int loginLength, int authorityCount) {
+        StringBuilder login = new StringBuilder(loginLength);
+        while (login.length() < loginLength) {
+            login.append((char) ('a' + login.length() % 26));
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(authorityCount);
+        String[] knownAuthorities = {AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN};
+        for (int i = 0; i < authorityCount; i++) {
+            authorities.add(new SimpleGrantedAuthority(
+                i < knownAuthorities.length ? knownAuthorities[i] : "ROLE_BENCHMARK_" + i));
+        }
+        return new UsernamePasswordAuthenticationToken(login.toString(), "password", authorities);
+    }
+}
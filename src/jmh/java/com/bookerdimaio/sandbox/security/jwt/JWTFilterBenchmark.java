@@ -0,0 +1,94 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a full {@link JWTFilter#doFilter} invocation on mock servlet requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"8", "512"})
+    public int loginLength;
+
+    @Param({"1", "5", "20"})
+    public int authorityCount;
+
+    @Param({"true", "false"})
+    public boolean authenticationCache;
+
+    private JWTFilter jwtFilter;
+
+    private MockHttpServletRequest validRequest;
+
+    private MockHttpServletRequest invalidRequest;
+
+    private MockHttpServletRequest malformedRequest;
+
+    private MockHttpServletRequest anonymousRequest;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        TokenProvider tokenProvider = JWTBenchmarkSupport.tokenProvider(authenticationCache);
+        jwtFilter = new JWTFilter(tokenProvider, new SimpleMeterRegistry());
+        String token = tokenProvider.createToken(JWTBenchmarkSupport.authentication(loginLength, authorityCount), false);
+        validRequest = request("Bearer " + token);
+        invalidRequest = request("Bearer " + token.substring(0, token.length() - 4));
+        malformedRequest = request("Bearer " + token.replace('.', '~'));
+        anonymousRequest = request(null);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object validToken() throws Exception {
+        return filter(validRequest);
+    }
+
+    @Benchmark
+    public Object invalidToken() throws Exception {
+        return filter(invalidRequest);
+    }
+
+    @Benchmark
+    public Object malformedToken() throws Exception {
+        return filter(malformedRequest);
+    }
+
+    @Benchmark
+    public Object missingToken() throws Exception {
+        return filter(anonymousRequest);
+    }
+
+    private Object filter(MockHttpServletRequest request) throws Exception {
+        try {
+            jwtFilter.doFilter(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        if (authorization != null) {
+            request.addHeader(JWTFilter.AUTHORIZATION_HEADER, authorization);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,45 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares issuing a token with the JJWT builder of {@link TokenProvider#createToken(Authentication, boolean)} and
+ * with a prepared {@link TokenTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenIssuanceBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int authorityCount;
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private TokenTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        tokenProvider = JWTBenchmarkSupport.tokenProvider(false);
+        authentication = JWTBenchmarkSupport.authentication(14, authorityCount);
+        template = tokenProvider.prepareTemplate(authentication.getAuthorities(), false);
+    }
+
+    @Benchmark
+    public String builder() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public String template() {
+        return template.createToken(authentication.getName());
+    }
+}
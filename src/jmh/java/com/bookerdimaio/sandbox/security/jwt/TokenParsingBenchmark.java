@@ -0,0 +1,44 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the validate-then-parse sequence formerly used by {@link JWTFilter} with the single-pass
+ * {@link TokenProvider#resolveAuthentication(String)}.
+ * <p>
+ * The authentication cache is disabled, so that every invocation pays for the signature verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenParsingBenchmark {
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        tokenProvider = JWTBenchmarkSupport.tokenProvider(false);
+        token = tokenProvider.createToken(JWTBenchmarkSupport.authentication(14, 2), false);
+    }
+
+    @Benchmark
+    public Authentication validateThenGetAuthentication() {
+        if (tokenProvider.validateToken(token)) {
+            return tokenProvider.getAuthentication(token);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Authentication resolveAuthentication() {
+        return tokenProvider.resolveAuthentication(token).getAuthentication();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link TokenProvider} operations for several token sizes and authority counts.
+ * <p>
+ * The {@code authenticationCache} parameter toggles the verified-token cache, so that both the cached steady state
+ * and the full signature verification are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    @Param({"8", "512"})
+    public int loginLength;
+
+    @Param({"1", "5", "20"})
+    public int authorityCount;
+
+    @Param({"true", "false"})
+    public boolean authenticationCache;
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        tokenProvider = JWTBenchmarkSupport.tokenProvider(authenticationCache);
+        authentication = JWTBenchmarkSupport.authentication(loginLength, authorityCount);
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+}
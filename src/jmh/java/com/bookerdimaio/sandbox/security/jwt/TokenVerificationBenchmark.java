@@ -0,0 +1,84 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of verifying a JWT for each signature algorithm: HS512 with the shared secret, and RS256 or
+ * ES256 with a public key of the JWKS keyring.
+ * <p>
+ * The authentication cache is disabled, so that every invocation pays for the signature verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private static final String KID = "benchmark";
+
+    @Param({"HS512", "RS256", "ES256"})
+    public String algorithm;
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    private Path jwksFile;
+
+    @Setup
+    public void setup() throws Exception {
+        if ("HS512".equals(algorithm)) {
+            tokenProvider = JWTBenchmarkSupport.tokenProvider(false);
+            token = tokenProvider.createToken(JWTBenchmarkSupport.authentication(14, 2), false);
+            return;
+        }
+        KeyPair keyPair = "RS256".equals(algorithm) ? JwksTestUtil.rsaKeyPair() : JwksTestUtil.ecKeyPair();
+        jwksFile = Files.createTempFile("jwks", ".json");
+        Files.write(jwksFile, JwksTestUtil.jwks(Collections.singletonMap(KID, keyPair.getPublic()))
+            .getBytes(StandardCharsets.UTF_8));
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getAuthenticationCache().setEnabled(false);
+        applicationProperties.getSecurity().getJwks().setEnabled(true);
+        applicationProperties.getSecurity().getJwks().setLocation(jwksFile.toString());
+        tokenProvider = new TokenProvider(new JHipsterProperties(), applicationProperties, new SimpleMeterRegistry());
+        tokenProvider.afterPropertiesSet();
+        token = Jwts.builder()
+            .setHeaderParam("kid", KID)
+            .setSubject("benchmark-user")
+            .claim("auth", AuthoritiesConstants.USER + "," + AuthoritiesConstants.ADMIN)
+            .signWith(keyPair.getPrivate(), SignatureAlgorithm.forName(algorithm))
+            .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+            .compact();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (jwksFile != null) {
+            Files.deleteIfExists(jwksFile);
+        }
+    }
+
+    @Benchmark
+    public Authentication resolveAuthentication() {
+        return tokenProvider.resolveAuthentication(token).getAuthentication();
+    }
+}
@@ -1,34 +1,122 @@
 package com.bookerdimaio.sandbox.aop.logging;
 
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
 import io.github.jhipster.config.JHipsterConstants;
 
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aspect for logging execution of service and repository Spring components.
- *
- * By default, it only runs with the "dev" profile.
+ * <p>
+ * With the {@code LOG} mode, used with the "dev" profile, method entries and exits are logged at the debug level.
+ * With the {@code TIMING} mode, the duration of a sample of the method calls is recorded in the
+ * {@code method.sampled} timers, and the arguments are not read: unsampled calls only cost a random draw. There is
+ * one timer per method and exception, so they publish neither histogram nor percentiles, whatever the
+ * {@code management.metrics.distribution} properties.
+ * <p>
+ * In both modes, every call is timed by the {@link SlowCallDetector} when its method has a slow call threshold.
+ * <p>
+ * The aspect can be disabled and enabled again by package at runtime, see {@link LoggingAspectEndpoint}.
  */
 @Aspect
 public class LoggingAspect {
 
+    public static final String TIMER_NAME = "method.sampled";
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     private final Environment env;
 
-    public LoggingAspect(Environment env) {
+    private final MeterRegistry meterRegistry;
+
+    private final Clock clock;
+
+    private final SlowCallDetector slowCallDetector;
+
+    private final ApplicationProperties.Aspect.Mode mode;
+
+    private final Map<Method, MethodSettings> methods = new ConcurrentHashMap<>();
+
+    private volatile double sampleRate;
+
+    private volatile Set<String> disabledPackages;
+
+    public LoggingAspect(Environment env, ApplicationProperties applicationProperties, MeterRegistry meterRegistry,
+                         SlowCallDetector slowCallDetector) {
         this.env = env;
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+        this.slowCallDetector = slowCallDetector;
+        ApplicationProperties.Aspect aspect = applicationProperties.getAspect();
+        this.mode = aspect.getMode();
+        setSampleRate(aspect.getSampleRate());
+        this.disabledPackages = Collections.unmodifiableSet(new TreeSet<>(aspect.getDisabledPackages()));
+    }
+
+    public ApplicationProperties.Aspect.Mode getMode() {
+        return mode;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Set the fraction of the method calls timed with the {@code TIMING} mode.
+     *
+     * @param sampleRate the sample rate, from 0 to 1.
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public Set<String> getDisabledPackages() {
+        return disabledPackages;
+    }
+
+    /**
+     * Enable or disable the aspect for the methods of a package and its sub-packages.
+     * <p>
+     * Enabling a package enables its sub-packages which were disabled on their own as well.
+     *
+     * @param packageName the package name.
+     * @param enabled whether the aspect applies to the methods of the package.
+     */
+    public synchronized void setPackageEnabled(String packageName, boolean enabled) {
+        Set<String> packages = new TreeSet<>(disabledPackages);
+        if (enabled) {
+            packages.removeIf(disabled -> isInPackage(disabled, packageName));
+        } else {
+            packages.add(packageName);
+        }
+        disabledPackages = Collections.unmodifiableSet(packages);
     }
 
     /**
@@ -78,10 +166,19 @@ public class LoggingAspect {
      */
     @Around("applicationPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSettings settings = methodSettings(joinPoint);
+        if (!settings.enabled) {
+            return joinPoint.proceed();
+        }
+        if (mode == ApplicationProperties.Aspect.Mode.TIMING) {
+            return time(joinPoint, settings);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Enter: {}.{}() with argument[s] = {}", joinPoint.getSignature().getDeclaringTypeName(),
                 joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
         }
+        long start = settings.slowCallThresholdInNanos >= 0 ? clock.monotonicTime() : 0;
+        Throwable exception = null;
         try {
             Object result = joinPoint.proceed();
             if (log.isDebugEnabled()) {
@@ -92,8 +189,103 @@ public class LoggingAspect {
         } catch (IllegalArgumentException e) {
             log.error("Illegal argument: {} in {}.{}()", Arrays.toString(joinPoint.getArgs()),
                 joinPoint.getSignature().getDeclaringTypeName(), joinPoint.getSignature().getName());
+            exception = e;
+            throw e;
+        } catch (Throwable e) {
+            exception = e;
+            throw e;
+        } finally {
+            if (settings.slowCallThresholdInNanos >= 0) {
+                detectSlowCall(joinPoint, settings, clock.monotonicTime() - start, exception);
+            }
+        }
+    }
 
+    private Object time(ProceedingJoinPoint joinPoint, MethodSettings settings) throws Throwable {
+        double rate = sampleRate;
+        boolean sampled = rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate;
+        if (!sampled && settings.slowCallThresholdInNanos < 0) {
+            return joinPoint.proceed();
+        }
+        long start = clock.monotonicTime();
+        Throwable exception = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e;
             throw e;
+        } finally {
+            long duration = clock.monotonicTime() - start;
+            if (sampled) {
+                Timer timer = exception == null ? settings.timer :
+                    timer(joinPoint, exception.getClass().getSimpleName());
+                timer.record(duration, TimeUnit.NANOSECONDS);
+            }
+            if (settings.slowCallThresholdInNanos >= 0) {
+                detectSlowCall(joinPoint, settings, duration, exception);
+            }
+        }
+    }
+
+    private void detectSlowCall(ProceedingJoinPoint joinPoint, MethodSettings settings, long durationInNanos,
+                                Throwable exception) {
+        if (durationInNanos >= settings.slowCallThresholdInNanos) {
+            slowCallDetector.record(joinPoint.getSignature().getDeclaringTypeName(),
+                joinPoint.getSignature().getName(), joinPoint.getArgs(), durationInNanos, exception);
+        }
+    }
+
+    /**
+     * Get the settings of the method of a join point, computed again when the disabled packages change.
+     */
+    private MethodSettings methodSettings(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Set<String> packages = disabledPackages;
+        MethodSettings settings = methods.get(method);
+        if (settings == null || settings.disabledPackages != packages) {
+            String typeName = joinPoint.getSignature().getDeclaringTypeName();
+            boolean enabled = packages.stream().noneMatch(disabled -> isInPackage(typeName, disabled));
+            Timer timer = settings != null ? settings.timer :
+                mode == ApplicationProperties.Aspect.Mode.TIMING ? timer(joinPoint, "none") : null;
+            long slowCallThresholdInNanos = settings != null ? settings.slowCallThresholdInNanos :
+                slowCallDetector.thresholdInNanos(typeName, joinPoint.getSignature().getName());
+            settings = new MethodSettings(packages, enabled, timer, slowCallThresholdInNanos);
+            methods.put(method, settings);
+        }
+        return settings;
+    }
+
+    private Timer timer(JoinPoint joinPoint, String exception) {
+        return Timer.builder(TIMER_NAME)
+            .description("The duration of a sample of the method calls")
+            .tag("class", joinPoint.getSignature().getDeclaringTypeName())
+            .tag("method", joinPoint.getSignature().getName())
+            .tag("exception", exception)
+            .publishPercentileHistogram(false)
+            .publishPercentiles()
+            .register(meterRegistry);
+    }
+
+    private static boolean isInPackage(String name, String packageName) {
+        return name.startsWith(packageName) &&
+            (name.length() == packageName.length() || name.charAt(packageName.length()) == '.');
+    }
+
+    private static class MethodSettings {
+
+        private final Set<String> disabledPackages;
+
+        private final boolean enabled;
+
+        private final Timer timer;
+
+        private final long slowCallThresholdInNanos;
+
+        MethodSettings(Set<String> disabledPackages, boolean enabled, Timer timer, long slowCallThresholdInNanos) {
+            this.disabledPackages = disabledPackages;
+            this.enabled = enabled;
+            this.timer = timer;
+            this.slowCallThresholdInNanos = slowCallThresholdInNanos;
         }
     }
 }
@@ -0,0 +1,54 @@
+package com.bookerdimaio.sandbox.aop.logging;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint of the {@link LoggingAspect}.
+ * <p>
+ * {@code GET /management/loggingaspect} returns its settings. {@code POST /management/loggingaspect} changes them
+ * without restarting, with a JSON body such as {@code {"packageName": "com.bookerdimaio.sandbox.repository",
+ * "enabled": false}} to disable the aspect for a package, or {@code {"sampleRate": 0.1}}.
+ */
+@Endpoint(id = "loggingaspect")
+public class LoggingAspectEndpoint {
+
+    private final LoggingAspect loggingAspect;
+
+    public LoggingAspectEndpoint(LoggingAspect loggingAspect) {
+        this.loggingAspect = loggingAspect;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("mode", loggingAspect.getMode());
+        settings.put("sampleRate", loggingAspect.getSampleRate());
+        settings.put("disabledPackages", loggingAspect.getDisabledPackages());
+        return settings;
+    }
+
+    @WriteOperation
+    public void configure(@Nullable String packageName, @Nullable Boolean enabled, @Nullable Double sampleRate) {
+        if ((packageName == null) != (enabled == null)) {
+            throw new InvalidEndpointRequestException("The package name and whether it is enabled go together",
+                "packageName and enabled must be set together");
+        }
+        if (sampleRate != null) {
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new InvalidEndpointRequestException("Invalid sample rate " + sampleRate,
+                    "sampleRate must be between 0 and 1");
+            }
+            loggingAspect.setSampleRate(sampleRate);
+        }
+        if (packageName != null) {
+            loggingAspect.setPackageEnabled(packageName, enabled);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.bookerdimaio.sandbox.aop.logging;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the method calls slower than their threshold, timed by the {@link LoggingAspect}.
+ * <p>
+ * Thresholds are set by package, class or method name, the most specific one applies. Only slow calls have their
+ * arguments formatted and the stack of their thread captured. They are kept in a ring buffer: once full, the oldest
+ * calls are replaced by the new ones. Slow calls are also counted by the {@code method.slow} meter.
+ */
+public class SlowCallDetector {
+
+    /**
+     * The threshold of the methods whose calls are not timed.
+     */
+    static final long DISABLED = -1;
+
+    private static final String COUNTER_NAME = "method.slow";
+
+    private final Logger log = LoggerFactory.getLogger(SlowCallDetector.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final long thresholdInNanos;
+
+    private final Map<String, Long> thresholdsInNanos = new HashMap<>();
+
+    private final int maxArgumentsLength;
+
+    private final int maxStackDepth;
+
+    private final AtomicReferenceArray<SlowCall> slowCalls;
+
+    private final AtomicLong detected = new AtomicLong();
+
+    public SlowCallDetector(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        ApplicationProperties.Aspect.SlowCalls properties = applicationProperties.getAspect().getSlowCalls();
+        this.enabled = properties.isEnabled();
+        this.thresholdInNanos = toNanos(properties.getThresholdInMillis());
+        properties.getThresholds().forEach((name, threshold) -> thresholdsInNanos.put(name, toNanos(threshold)));
+        this.maxArgumentsLength = properties.getMaxArgumentsLength();
+        this.maxStackDepth = properties.getMaxStackDepth();
+        this.slowCalls = new AtomicReferenceArray<>(Math.max(1, properties.getCapacity()));
+    }
+
+    /**
+     * Get the threshold of a method: the one of the method, else of its class, else of its closest package.
+     *
+     * @param typeName the name of the class declaring the method.
+     * @param methodName the name of the method.
+     * @return the threshold in nanoseconds, {@link #DISABLED} if the calls of the method are not to be timed.
+     */
+    public long thresholdInNanos(String typeName, String methodName) {
+        if (!enabled) {
+            return DISABLED;
+        }
+        Long threshold = thresholdsInNanos.get(typeName + '.' + methodName);
+        String name = typeName;
+        while (threshold == null && name != null) {
+            threshold = thresholdsInNanos.get(name);
+            int lastDot = name.lastIndexOf('.');
+            name = lastDot > 0 ? name.substring(0, lastDot) : null;
+        }
+        return threshold != null ? threshold : thresholdInNanos;
+    }
+
+    /**
+     * Keep a call which was slower than its threshold, with the stack of the current thread.
+     *
+     * @param typeName the name of the class declaring the method.
+     * @param methodName the name of the method.
+     * @param arguments the arguments of the call.
+     * @param durationInNanos the duration of the call.
+     * @param exception the exception thrown by the call, or {@code null}.
+     */
+    public void record(String typeName, String methodName, Object[] arguments, long durationInNanos,
+                       Throwable exception) {
+        SlowCall slowCall = new SlowCall(Instant.now().minusNanos(durationInNanos), typeName, methodName,
+            TimeUnit.NANOSECONDS.toMillis(durationInNanos), Thread.currentThread().getName(), format(arguments),
+            exception == null ? null : exception.getClass().getName(), stackTrace());
+        slowCalls.set((int) (detected.getAndIncrement() % slowCalls.length()), slowCall);
+        Counter.builder(COUNTER_NAME)
+            .description("The number of method calls slower than their threshold")
+            .tag("class", typeName)
+            .tag("method", methodName)
+            .register(meterRegistry)
+            .increment();
+        log.debug("Slow call: {}.{}() took {} ms", typeName, methodName, slowCall.getDurationInMillis());
+    }
+
+    /**
+     * Get the slow calls kept.
+     *
+     * @return the slow calls, the most recent first.
+     */
+    public List<SlowCall> getSlowCalls() {
+        long last = detected.get();
+        long first = Math.max(0, last - slowCalls.length());
+        List<SlowCall> result = new ArrayList<>((int) (last - first));
+        for (long i = last - 1; i >= first; i--) {
+            SlowCall slowCall = slowCalls.get((int) (i % slowCalls.length()));
+            if (slowCall != null) {
+                result.add(slowCall);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the slow calls kept.
+     */
+    public void clear() {
+        for (int i = 0; i < slowCalls.length(); i++) {
+            slowCalls.set(i, null);
+        }
+    }
+
+    private String format(Object[] arguments) {
+        String formatted;
+        try {
+            formatted = Arrays.toString(arguments);
+        } catch (RuntimeException e) {
+            formatted = "<" + e + ">";
+        }
+        if (formatted.length() > maxArgumentsLength) {
+            return formatted.substring(0, maxArgumentsLength) + "...";
+        }
+        return formatted;
+    }
+
+    /**
+     * Get the stack of the current thread, without the frames of the detection.
+     */
+    private List<String> stackTrace() {
+        StackTraceElement[] elements = Thread.currentThread().getStackTrace();
+        List<String> stackTrace = new ArrayList<>(Math.min(elements.length, maxStackDepth));
+        for (StackTraceElement element : elements) {
+            if (stackTrace.size() == maxStackDepth) {
+                break;
+            }
+            String className = element.getClassName();
+            if (stackTrace.isEmpty() && (className.equals(Thread.class.getName()) ||
+                className.equals(SlowCallDetector.class.getName()) ||
+                className.equals(LoggingAspect.class.getName()))) {
+                continue;
+            }
+            stackTrace.add(element.toString());
+        }
+        return stackTrace;
+    }
+
+    private static long toNanos(long thresholdInMillis) {
+        return thresholdInMillis < 0 ? DISABLED : TimeUnit.MILLISECONDS.toNanos(thresholdInMillis);
+    }
+
+    /**
+     * A method call slower than its threshold.
+     */
+    public static class SlowCall {
+
+        private final Instant start;
+
+        private final String className;
+
+        private final String methodName;
+
+        private final long durationInMillis;
+
+        private final String threadName;
+
+        private final String arguments;
+
+        private final String exception;
+
+        private final List<String> stackTrace;
+
+        SlowCall(Instant start, String className, String methodName, long durationInMillis, String threadName,
+                 String arguments, String exception, List<String> stackTrace) {
+            this.start = start;
+            this.className = className;
+            this.methodName = methodName;
+            this.durationInMillis = durationInMillis;
+            this.threadName = threadName;
+            this.arguments = arguments;
+            this.exception = exception;
+            this.stackTrace = Collections.unmodifiableList(stackTrace);
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public String getArguments() {
+            return arguments;
+        }
+
+        public String getException() {
+            return exception;
+        }
+
+        public List<String> getStackTrace() {
+            return stackTrace;
+        }
+    }
+}
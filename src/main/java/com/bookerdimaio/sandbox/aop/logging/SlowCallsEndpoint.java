@@ -0,0 +1,33 @@
+package com.bookerdimaio.sandbox.aop.logging;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Management endpoint of the {@link SlowCallDetector}.
+ * <p>
+ * {@code GET /management/slowcalls} returns the slow calls kept, the most recent first, and
+ * {@code DELETE /management/slowcalls} forgets them.
+ */
+@Endpoint(id = "slowcalls")
+public class SlowCallsEndpoint {
+
+    private final SlowCallDetector slowCallDetector;
+
+    public SlowCallsEndpoint(SlowCallDetector slowCallDetector) {
+        this.slowCallDetector = slowCallDetector;
+    }
+
+    @ReadOperation
+    public List<SlowCallDetector.SlowCall> slowCalls() {
+        return slowCallDetector.getSlowCalls();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowCallDetector.clear();
+    }
+}
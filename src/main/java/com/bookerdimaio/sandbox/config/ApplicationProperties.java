@@ -1,6 +1,15 @@
 package com.bookerdimaio.sandbox.config;
 
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MaxSizeConfig;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Properties specific to Microservice 1.
@@ -11,4 +20,997 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Security security = new Security();
+
+    private final Cache cache = new Cache();
+
+    private final Audit audit = new Audit();
+
+    private final Aspect aspect = new Aspect();
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public Aspect getAspect() {
+        return aspect;
+    }
+
+    public static class Audit {
+
+        private int bufferSize = 8192;
+
+        private int batchSize = 200;
+
+        private long flushIntervalInMillis = 1000;
+
+        private long offerTimeoutInMillis = 10;
+
+        private long shutdownTimeoutInSeconds = 10;
+
+        private int streamPageSize = 1000;
+
+        private int streamFetchSize = 100;
+
+        private int streamThreads = 4;
+
+        private int streamQueueCapacity = 0;
+
+        private long streamTimeoutInSeconds = 3600;
+
+        private DataStorage dataStorage = DataStorage.TABLE;
+
+        private final Retention retention = new Retention();
+
+        /**
+         * Get the maximum number of events waiting to be written.
+         *
+         * @return the buffer size.
+         */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalInMillis() {
+            return flushIntervalInMillis;
+        }
+
+        public void setFlushIntervalInMillis(long flushIntervalInMillis) {
+            this.flushIntervalInMillis = flushIntervalInMillis;
+        }
+
+        /**
+         * Get how long an event waits for room in a full buffer before it is dropped.
+         *
+         * @return the timeout, in milliseconds.
+         */
+        public long getOfferTimeoutInMillis() {
+            return offerTimeoutInMillis;
+        }
+
+        public void setOfferTimeoutInMillis(long offerTimeoutInMillis) {
+            this.offerTimeoutInMillis = offerTimeoutInMillis;
+        }
+
+        public long getShutdownTimeoutInSeconds() {
+            return shutdownTimeoutInSeconds;
+        }
+
+        public void setShutdownTimeoutInSeconds(long shutdownTimeoutInSeconds) {
+            this.shutdownTimeoutInSeconds = shutdownTimeoutInSeconds;
+        }
+
+        /**
+         * Get the number of events read by each query when streaming events.
+         *
+         * @return the page size.
+         */
+        public int getStreamPageSize() {
+            return streamPageSize;
+        }
+
+        public void setStreamPageSize(int streamPageSize) {
+            this.streamPageSize = streamPageSize;
+        }
+
+        /**
+         * Get the number of rows fetched from the database at a time when streaming events.
+         *
+         * @return the fetch size.
+         */
+        public int getStreamFetchSize() {
+            return streamFetchSize;
+        }
+
+        public void setStreamFetchSize(int streamFetchSize) {
+            this.streamFetchSize = streamFetchSize;
+        }
+
+        /**
+         * Get the maximum number of event streams written at once, each on its own thread.
+         *
+         * @return the number of threads.
+         */
+        public int getStreamThreads() {
+            return streamThreads;
+        }
+
+        public void setStreamThreads(int streamThreads) {
+            this.streamThreads = streamThreads;
+        }
+
+        /**
+         * Get the number of event streams waiting for a thread, beyond which streams are refused.
+         *
+         * @return the queue capacity.
+         */
+        public int getStreamQueueCapacity() {
+            return streamQueueCapacity;
+        }
+
+        public void setStreamQueueCapacity(int streamQueueCapacity) {
+            this.streamQueueCapacity = streamQueueCapacity;
+        }
+
+        /**
+         * Get the time after which an event stream is ended, even if not all its events were written.
+         *
+         * @return the timeout, in seconds.
+         */
+        public long getStreamTimeoutInSeconds() {
+            return streamTimeoutInSeconds;
+        }
+
+        public void setStreamTimeoutInSeconds(long streamTimeoutInSeconds) {
+            this.streamTimeoutInSeconds = streamTimeoutInSeconds;
+        }
+
+        /**
+         * Get where the data of the written events is stored.
+         *
+         * @return the data storage.
+         */
+        public DataStorage getDataStorage() {
+            return dataStorage;
+        }
+
+        public void setDataStorage(DataStorage dataStorage) {
+            this.dataStorage = dataStorage;
+        }
+
+        public Retention getRetention() {
+            return retention;
+        }
+
+        public enum DataStorage {
+            /**
+             * One row per data entry, in the {@code jhi_persistent_audit_evt_data} table.
+             */
+            TABLE,
+            /**
+             * A JSON object in the {@code event_data} column of the event row: a single insert per event, and no
+             * join when reading. The data written before with the {@code TABLE} storage is copied to the column by
+             * the Liquibase migration adding it, later data is only read from the table by JPA queries.
+             */
+            COLUMN
+        }
+
+        public static class Retention {
+
+            private boolean enabled = false;
+
+            private String cron = "0 0 1 * * ?";
+
+            private int months = 12;
+
+            private int premadeMonths = 2;
+
+            private Mode mode = Mode.DROP;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getCron() {
+                return cron;
+            }
+
+            public void setCron(String cron) {
+                this.cron = cron;
+            }
+
+            /**
+             * Get the number of full months kept before the current one.
+             *
+             * @return the retention, in months.
+             */
+            public int getMonths() {
+                return months;
+            }
+
+            public void setMonths(int months) {
+                this.months = months;
+            }
+
+            /**
+             * Get the number of monthly partitions created ahead of the current month.
+             *
+             * @return the number of months.
+             */
+            public int getPremadeMonths() {
+                return premadeMonths;
+            }
+
+            public void setPremadeMonths(int premadeMonths) {
+                this.premadeMonths = premadeMonths;
+            }
+
+            public Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(Mode mode) {
+                this.mode = mode;
+            }
+
+            public enum Mode {
+                /**
+                 * Drop the expired partitions.
+                 */
+                DROP,
+                /**
+                 * Detach the expired partitions, and copy their event data next to them, to be archived and
+                 * dropped outside of the application.
+                 */
+                ARCHIVE
+            }
+        }
+    }
+
+    public static class Aspect {
+
+        private Mode mode = Mode.TIMING;
+
+        private double sampleRate = 0.01;
+
+        private List<String> disabledPackages = new ArrayList<>();
+
+        private final SlowCalls slowCalls = new SlowCalls();
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * Get the fraction of the method calls timed with the {@code TIMING} mode, from 0 to 1.
+         *
+         * @return the sample rate.
+         */
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * Get the packages whose methods are initially left alone by the aspect, including their sub-packages.
+         *
+         * @return the package names.
+         */
+        public List<String> getDisabledPackages() {
+            return disabledPackages;
+        }
+
+        public void setDisabledPackages(List<String> disabledPackages) {
+            this.disabledPackages = disabledPackages;
+        }
+
+        public SlowCalls getSlowCalls() {
+            return slowCalls;
+        }
+
+        public enum Mode {
+            /**
+             * Log the method entries and exits, with their arguments and results, at the debug level.
+             */
+            LOG,
+            /**
+             * Record the duration of a sample of the method calls in Micrometer timers, without logging.
+             */
+            TIMING
+        }
+
+        public static class SlowCalls {
+
+            private boolean enabled = true;
+
+            private long thresholdInMillis = 1000;
+
+            private Map<String, Long> thresholds = new LinkedHashMap<>();
+
+            private int capacity = 100;
+
+            private int maxArgumentsLength = 1000;
+
+            private int maxStackDepth = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * Get the duration from which a call is slow, for the methods without a threshold of their own.
+             *
+             * @return the threshold, in milliseconds.
+             */
+            public long getThresholdInMillis() {
+                return thresholdInMillis;
+            }
+
+            public void setThresholdInMillis(long thresholdInMillis) {
+                this.thresholdInMillis = thresholdInMillis;
+            }
+
+            /**
+             * Get the thresholds, in milliseconds, by package, class or method name ({@code Class.method}). The
+             * most specific name applies, a negative threshold disables the detection.
+             *
+             * @return the thresholds by name.
+             */
+            public Map<String, Long> getThresholds() {
+                return thresholds;
+            }
+
+            public void setThresholds(Map<String, Long> thresholds) {
+                this.thresholds = thresholds;
+            }
+
+            /**
+             * Get the number of slow calls kept, the oldest ones are replaced by the new ones.
+             *
+             * @return the capacity.
+             */
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getMaxArgumentsLength() {
+                return maxArgumentsLength;
+            }
+
+            public void setMaxArgumentsLength(int maxArgumentsLength) {
+                this.maxArgumentsLength = maxArgumentsLength;
+            }
+
+            public int getMaxStackDepth() {
+                return maxStackDepth;
+            }
+
+            public void setMaxStackDepth(int maxStackDepth) {
+                this.maxStackDepth = maxStackDepth;
+            }
+        }
+    }
+
+    public static class Security {
+
+        private final AuthenticationCache authenticationCache = new AuthenticationCache();
+
+        private final Jwks jwks = new Jwks();
+
+        private final InvalidTokenCache invalidTokenCache = new InvalidTokenCache();
+
+        private long invalidTokenLogIntervalInSeconds = 10;
+
+        public AuthenticationCache getAuthenticationCache() {
+            return authenticationCache;
+        }
+
+        public Jwks getJwks() {
+            return jwks;
+        }
+
+        public InvalidTokenCache getInvalidTokenCache() {
+            return invalidTokenCache;
+        }
+
+        public long getInvalidTokenLogIntervalInSeconds() {
+            return invalidTokenLogIntervalInSeconds;
+        }
+
+        public void setInvalidTokenLogIntervalInSeconds(long invalidTokenLogIntervalInSeconds) {
+            this.invalidTokenLogIntervalInSeconds = invalidTokenLogIntervalInSeconds;
+        }
+
+        public static class AuthenticationCache {
+
+            private boolean enabled = true;
+
+            private long maxSize = 10000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        public static class Jwks {
+
+            private boolean enabled = false;
+
+            private String location;
+
+            private long reloadIntervalInSeconds = 60;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getLocation() {
+                return location;
+            }
+
+            public void setLocation(String location) {
+                this.location = location;
+            }
+
+            public long getReloadIntervalInSeconds() {
+                return reloadIntervalInSeconds;
+            }
+
+            public void setReloadIntervalInSeconds(long reloadIntervalInSeconds) {
+                this.reloadIntervalInSeconds = reloadIntervalInSeconds;
+            }
+        }
+
+        public static class InvalidTokenCache {
+
+            private boolean enabled = true;
+
+            private long maxSize = 10000;
+
+            private long timeToLiveInSeconds = 300;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public long getTimeToLiveInSeconds() {
+                return timeToLiveInSeconds;
+            }
+
+            public void setTimeToLiveInSeconds(long timeToLiveInSeconds) {
+                this.timeToLiveInSeconds = timeToLiveInSeconds;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        private final Hazelcast hazelcast = new Hazelcast();
+
+        private final WarmUp warmUp = new WarmUp();
+
+        private final Local local = new Local();
+
+        private final Query query = new Query();
+
+        public Hazelcast getHazelcast() {
+            return hazelcast;
+        }
+
+        public Local getLocal() {
+            return local;
+        }
+
+        public WarmUp getWarmUp() {
+            return warmUp;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        public static class Query {
+
+            private boolean enabled = false;
+
+            private int maxSize = 10000;
+
+            private int timeToLiveSeconds = 600;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        public static class Local {
+
+            private boolean enabled = false;
+
+            private final Map<String, LocalCache> caches = new LinkedHashMap<>();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * Get the local cache configurations, by cache name or {@code default}.
+             *
+             * @return the local cache configurations.
+             */
+            public Map<String, LocalCache> getCaches() {
+                return caches;
+            }
+
+            /**
+             * Configuration of the local tier of a cache. Settings left unset are inherited from the
+             * {@code default} configuration.
+             */
+            public static class LocalCache {
+
+                /**
+                 * Where the local copies are stored.
+                 */
+                public enum Storage {
+                    /** On the heap, bounded by the number of entries. */
+                    HEAP,
+                    /** In native memory, bounded by the memory used by the serialized entries. */
+                    OFF_HEAP
+                }
+
+                private Boolean enabled;
+
+                private Storage storage;
+
+                private Long maxSize;
+
+                private DataSize maxMemory;
+
+                private Long timeToLiveSeconds;
+
+                public Boolean getEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(Boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public Storage getStorage() {
+                    return storage;
+                }
+
+                public void setStorage(Storage storage) {
+                    this.storage = storage;
+                }
+
+                /**
+                 * Get the maximum number of entries, when stored on the heap.
+                 *
+                 * @return the maximum number of entries.
+                 */
+                public Long getMaxSize() {
+                    return maxSize;
+                }
+
+                public void setMaxSize(Long maxSize) {
+                    this.maxSize = maxSize;
+                }
+
+                /**
+                 * Get the memory budget, when stored off the heap.
+                 *
+                 * @return the memory budget.
+                 */
+                public DataSize getMaxMemory() {
+                    return maxMemory;
+                }
+
+                public void setMaxMemory(DataSize maxMemory) {
+                    this.maxMemory = maxMemory;
+                }
+
+                public Long getTimeToLiveSeconds() {
+                    return timeToLiveSeconds;
+                }
+
+                public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                    this.timeToLiveSeconds = timeToLiveSeconds;
+                }
+            }
+        }
+
+        public static class WarmUp {
+
+            private boolean enabled = false;
+
+            private List<String> regions = new ArrayList<>();
+
+            private int batchSize = 500;
+
+            private int parallelism = 4;
+
+            private long timeoutInSeconds = 300;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * Get the names of the regions to preload, entity regions are named after the entity class.
+             *
+             * @return the region names.
+             */
+            public List<String> getRegions() {
+                return regions;
+            }
+
+            public void setRegions(List<String> regions) {
+                this.regions = regions;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getParallelism() {
+                return parallelism;
+            }
+
+            public void setParallelism(int parallelism) {
+                this.parallelism = parallelism;
+            }
+
+            public long getTimeoutInSeconds() {
+                return timeoutInSeconds;
+            }
+
+            public void setTimeoutInSeconds(long timeoutInSeconds) {
+                this.timeoutInSeconds = timeoutInSeconds;
+            }
+        }
+
+        public static class Hazelcast {
+
+            private final NearCache nearCache = new NearCache();
+
+            private final Map<String, Region> regions = new LinkedHashMap<>();
+
+            private final Discovery discovery = new Discovery();
+
+            public NearCache getNearCache() {
+                return nearCache;
+            }
+
+            public Discovery getDiscovery() {
+                return discovery;
+            }
+
+            /**
+             * Get the map configurations, by map name or name pattern, such as {@code default} or the name of an
+             * entity region.
+             *
+             * @return the region configurations.
+             */
+            public Map<String, Region> getRegions() {
+                return regions;
+            }
+
+            public static class Discovery {
+
+                private int refreshIntervalSeconds = 30;
+
+                /**
+                 * Get the delay between two lookups of the members in the discovery service, by the split-brain
+                 * merge task.
+                 *
+                 * @return the delay, in seconds.
+                 */
+                public int getRefreshIntervalSeconds() {
+                    return refreshIntervalSeconds;
+                }
+
+                public void setRefreshIntervalSeconds(int refreshIntervalSeconds) {
+                    this.refreshIntervalSeconds = refreshIntervalSeconds;
+                }
+            }
+
+            /**
+             * Map configuration of a cache region. Settings left unset are inherited from the configuration
+             * matching the region name.
+             */
+            public static class Region {
+
+                private MaxSizeConfig.MaxSizePolicy maxSizePolicy;
+
+                private Integer maxSize;
+
+                private EvictionPolicy evictionPolicy;
+
+                private Integer timeToLiveSeconds;
+
+                private Integer maxIdleSeconds;
+
+                private Integer backupCount;
+
+                private Integer asyncBackupCount;
+
+                public MaxSizeConfig.MaxSizePolicy getMaxSizePolicy() {
+                    return maxSizePolicy;
+                }
+
+                public void setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy maxSizePolicy) {
+                    this.maxSizePolicy = maxSizePolicy;
+                }
+
+                public Integer getMaxSize() {
+                    return maxSize;
+                }
+
+                public void setMaxSize(Integer maxSize) {
+                    this.maxSize = maxSize;
+                }
+
+                public EvictionPolicy getEvictionPolicy() {
+                    return evictionPolicy;
+                }
+
+                public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+                    this.evictionPolicy = evictionPolicy;
+                }
+
+                public Integer getTimeToLiveSeconds() {
+                    return timeToLiveSeconds;
+                }
+
+                public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                    this.timeToLiveSeconds = timeToLiveSeconds;
+                }
+
+                public Integer getMaxIdleSeconds() {
+                    return maxIdleSeconds;
+                }
+
+                public void setMaxIdleSeconds(Integer maxIdleSeconds) {
+                    this.maxIdleSeconds = maxIdleSeconds;
+                }
+
+                public Integer getBackupCount() {
+                    return backupCount;
+                }
+
+                public void setBackupCount(Integer backupCount) {
+                    this.backupCount = backupCount;
+                }
+
+                public Integer getAsyncBackupCount() {
+                    return asyncBackupCount;
+                }
+
+                public void setAsyncBackupCount(Integer asyncBackupCount) {
+                    this.asyncBackupCount = asyncBackupCount;
+                }
+            }
+
+            public static class NearCache {
+
+                private boolean enabled = false;
+
+                private InMemoryFormat inMemoryFormat = InMemoryFormat.OBJECT;
+
+                private int maxSize = 10000;
+
+                private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+                private int timeToLiveSeconds = 0;
+
+                private int maxIdleSeconds = 0;
+
+                private boolean invalidateOnChange = true;
+
+                private boolean cacheLocalEntries = false;
+
+                private final InvalidationBatch invalidationBatch = new InvalidationBatch();
+
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                public void setEnabled(boolean enabled) {
+                    this.enabled = enabled;
+                }
+
+                public InMemoryFormat getInMemoryFormat() {
+                    return inMemoryFormat;
+                }
+
+                public void setInMemoryFormat(InMemoryFormat inMemoryFormat) {
+                    this.inMemoryFormat = inMemoryFormat;
+                }
+
+                public int getMaxSize() {
+                    return maxSize;
+                }
+
+                public void setMaxSize(int maxSize) {
+                    this.maxSize = maxSize;
+                }
+
+                public EvictionPolicy getEvictionPolicy() {
+                    return evictionPolicy;
+                }
+
+                public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+                    this.evictionPolicy = evictionPolicy;
+                }
+
+                public int getTimeToLiveSeconds() {
+                    return timeToLiveSeconds;
+                }
+
+                public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                    this.timeToLiveSeconds = timeToLiveSeconds;
+                }
+
+                public int getMaxIdleSeconds() {
+                    return maxIdleSeconds;
+                }
+
+                public void setMaxIdleSeconds(int maxIdleSeconds) {
+                    this.maxIdleSeconds = maxIdleSeconds;
+                }
+
+                public boolean isInvalidateOnChange() {
+                    return invalidateOnChange;
+                }
+
+                public void setInvalidateOnChange(boolean invalidateOnChange) {
+                    this.invalidateOnChange = invalidateOnChange;
+                }
+
+                public boolean isCacheLocalEntries() {
+                    return cacheLocalEntries;
+                }
+
+                public void setCacheLocalEntries(boolean cacheLocalEntries) {
+                    this.cacheLocalEntries = cacheLocalEntries;
+                }
+
+                public InvalidationBatch getInvalidationBatch() {
+                    return invalidationBatch;
+                }
+
+                public static class InvalidationBatch {
+
+                    private boolean enabled = true;
+
+                    private int size = 100;
+
+                    private int frequencySeconds = 10;
+
+                    public boolean isEnabled() {
+                        return enabled;
+                    }
+
+                    public void setEnabled(boolean enabled) {
+                        this.enabled = enabled;
+                    }
+
+                    public int getSize() {
+                        return size;
+                    }
+
+                    public void setSize(int size) {
+                        this.size = size;
+                    }
+
+                    public int getFrequencySeconds() {
+                        return frequencySeconds;
+                    }
+
+                    public void setFrequencySeconds(int frequencySeconds) {
+                        this.frequencySeconds = frequencySeconds;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -40,6 +40,22 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Threads of the audit event streams, which may each last long, apart from the application task executor. A
+     * stream finding neither a thread nor room in the queue is refused.
+     */
+    @Bean(name = "auditEventStreamExecutor")
+    public ThreadPoolTaskExecutor auditEventStreamExecutor(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(audit.getStreamThreads());
+        executor.setMaxPoolSize(audit.getStreamThreads());
+        executor.setQueueCapacity(audit.getStreamQueueCapacity());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("audit-event-stream-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
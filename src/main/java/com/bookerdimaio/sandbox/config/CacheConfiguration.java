@@ -1,15 +1,30 @@
 package com.bookerdimaio.sandbox.config;
 
+import com.bookerdimaio.sandbox.config.cache.CacheWarmUp;
+import com.bookerdimaio.sandbox.config.cache.DiscoveryClientDiscoveryStrategyFactory;
+import com.bookerdimaio.sandbox.config.cache.HazelcastCachesEndpointWebExtension;
+import com.bookerdimaio.sandbox.config.cache.HazelcastMapMetrics;
+import com.bookerdimaio.sandbox.config.cache.HazelcastRegionConfigurer;
+import com.bookerdimaio.sandbox.config.cache.QueryResultCache;
+import com.bookerdimaio.sandbox.config.cache.QueryResultInvalidator;
+import com.bookerdimaio.sandbox.config.cache.TwoTierCacheManager;
+
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.JHipsterProperties;
 
 import com.hazelcast.config.*;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.Hazelcast;
+import com.hazelcast.spi.properties.GroupProperty;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 
 import org.springframework.cache.CacheManager;
@@ -21,6 +36,15 @@ import org.springframework.context.annotation.*;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 @Configuration
 @EnableCaching
@@ -54,13 +78,76 @@ public class CacheConfiguration implements DisposableBean {
     }
 
     @Bean
-    public CacheManager cacheManager(HazelcastInstance hazelcastInstance) {
+    public CacheManager cacheManager(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties,
+                                     MeterRegistry meterRegistry) {
         log.debug("Starting HazelcastCacheManager");
-        return new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+        com.hazelcast.spring.cache.HazelcastCacheManager hazelcastCacheManager =
+            new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+        ApplicationProperties.Cache.Local local = applicationProperties.getCache().getLocal();
+        if (!local.isEnabled()) {
+            return hazelcastCacheManager;
+        }
+        log.debug("Adding local caches in front of the Hazelcast caches");
+        return new TwoTierCacheManager(hazelcastCacheManager, local.getCaches(), meterRegistry);
+    }
+
+    @Bean
+    public HazelcastMapMetrics hazelcastMapMetrics(HazelcastInstance hazelcastInstance) {
+        return new HazelcastMapMetrics(hazelcastInstance);
+    }
+
+    @Bean
+    public CachesEndpoint cachesEndpoint(Map<String, CacheManager> cacheManagers) {
+        return new CachesEndpoint(cacheManagers);
+    }
+
+    @Bean
+    public HazelcastCachesEndpointWebExtension cachesEndpointWebExtension(CachesEndpoint cachesEndpoint,
+                                                                          HazelcastInstance hazelcastInstance) {
+        return new HazelcastCachesEndpointWebExtension(cachesEndpoint, hazelcastInstance);
+    }
+
+    /**
+     * Threads of the cache warm-up, one per batch loaded in parallel, apart from the application task executor.
+     * They stop once idle, after the warm-up.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.warm-up", name = "enabled")
+    public ThreadPoolTaskExecutor cacheWarmUpExecutor(ApplicationProperties applicationProperties) {
+        int parallelism = Math.max(1, applicationProperties.getCache().getWarmUp().getParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("cache-warm-up-");
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.warm-up", name = "enabled")
+    public CacheWarmUp cacheWarmUp(HazelcastInstance hazelcastInstance, EntityManagerFactory entityManagerFactory,
+                                   @Qualifier("cacheWarmUpExecutor") Executor executor, SpringLiquibase liquibase,
+                                   ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache.WarmUp warmUp = applicationProperties.getCache().getWarmUp();
+        CompletionStage<?> migration = liquibase instanceof ObservableSpringLiquibase ?
+            ((ObservableSpringLiquibase) liquibase).getMigration() : CompletableFuture.completedFuture(null);
+        return new CacheWarmUp(hazelcastInstance, entityManagerFactory, executor, migration, warmUp.getRegions(),
+            warmUp.getBatchSize(), warmUp.getParallelism(), warmUp.getTimeoutInSeconds());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.query", name = "enabled")
+    public QueryResultCache queryResultCache(HazelcastInstance hazelcastInstance,
+                                             EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        QueryResultCache queryResultCache = new QueryResultCache(hazelcastInstance, entityManagerFactory,
+            meterRegistry);
+        QueryResultInvalidator.register(entityManagerFactory, queryResultCache);
+        return queryResultCache;
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties,
+                                               ApplicationProperties applicationProperties) {
         log.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("microservice1");
         if (hazelCastInstance != null) {
@@ -77,6 +164,7 @@ public class CacheConfiguration implements DisposableBean {
             // see the "spring.application.name" standard Spring property
             String serviceId = registration.getServiceId();
             log.debug("Configuring Hazelcast clustering for instanceId: {}", serviceId);
+            Function<ServiceInstance, InetSocketAddress> addressResolver;
             // In development, everything goes through 127.0.0.1, with a different port
             if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
                 log.debug("Application is running with the \"dev\" profile, Hazelcast " +
@@ -84,30 +172,49 @@ public class CacheConfiguration implements DisposableBean {
 
                 System.setProperty("hazelcast.local.localAddress", "127.0.0.1");
                 config.getNetworkConfig().setPort(serverProperties.getPort() + 5701);
-                config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true);
-                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
-                    String clusterMember = "127.0.0.1:" + (instance.getPort() + 5701);
-                    log.debug("Adding Hazelcast (dev) cluster member {}", clusterMember);
-                    config.getNetworkConfig().getJoin().getTcpIpConfig().addMember(clusterMember);
-                }
+                addressResolver = instance -> InetSocketAddress.createUnresolved("127.0.0.1", instance.getPort() + 5701);
             } else { // Production configuration, one host per instance all using port 5701
                 config.getNetworkConfig().setPort(5701);
-                config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true);
-                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
-                    String clusterMember = instance.getHost() + ":5701";
-                    log.debug("Adding Hazelcast (prod) cluster member {}", clusterMember);
-                    config.getNetworkConfig().getJoin().getTcpIpConfig().addMember(clusterMember);
-                }
+                addressResolver = instance -> InetSocketAddress.createUnresolved(instance.getHost(), 5701);
             }
+            initializeDiscovery(config, serviceId, addressResolver, applicationProperties);
         }
         config.getMapConfigs().put("default", initializeDefaultMapConfig(jHipsterProperties));
 
         // Full reference is available at: http://docs.hazelcast.org/docs/management-center/3.9/manual/html/Deploying_and_Starting.html
         config.setManagementCenterConfig(initializeDefaultManagementCenterConfig(jHipsterProperties));
-        config.getMapConfigs().put("com.bookerdimaio.sandbox.domain.*", initializeDomainMapConfig(jHipsterProperties));
+        config.getMapConfigs().put("com.bookerdimaio.sandbox.domain.*",
+            initializeDomainMapConfig(jHipsterProperties, applicationProperties));
+        initializeNearCacheInvalidation(config, applicationProperties);
+        ApplicationProperties.Cache.Query query = applicationProperties.getCache().getQuery();
+        if (query.isEnabled()) {
+            config.addMapConfig(QueryResultCache.mapConfig(query.getMaxSize(), query.getTimeToLiveSeconds()));
+        }
+        HazelcastRegionConfigurer.configure(config, applicationProperties.getCache().getHazelcast().getRegions());
         return Hazelcast.newHazelcastInstance(config);
     }
 
+    private void initializeDiscovery(Config config, String serviceId,
+                                     Function<ServiceInstance, InetSocketAddress> addressResolver,
+                                     ApplicationProperties applicationProperties) {
+        /*
+        Members are listed from the discovery service when joining, and again every
+        time the split-brain merge task runs: instances started later are found, and
+        members which formed their own cluster merge into the oldest one.
+        */
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        config.setProperty(GroupProperty.DISCOVERY_SPI_ENABLED.getName(), "true");
+        config.getNetworkConfig().getJoin().getDiscoveryConfig().addDiscoveryStrategyConfig(
+            new DiscoveryStrategyConfig(new DiscoveryClientDiscoveryStrategyFactory(discoveryClient, serviceId,
+                addressResolver)));
+        ApplicationProperties.Cache.Hazelcast.Discovery discovery =
+            applicationProperties.getCache().getHazelcast().getDiscovery();
+        config.setProperty(GroupProperty.MERGE_FIRST_RUN_DELAY_SECONDS.getName(),
+            String.valueOf(discovery.getRefreshIntervalSeconds()));
+        config.setProperty(GroupProperty.MERGE_NEXT_RUN_DELAY_SECONDS.getName(),
+            String.valueOf(discovery.getRefreshIntervalSeconds()));
+    }
+
     private ManagementCenterConfig initializeDefaultManagementCenterConfig(JHipsterProperties jHipsterProperties) {
         ManagementCenterConfig managementCenterConfig = new ManagementCenterConfig();
         managementCenterConfig.setEnabled(jHipsterProperties.getCache().getHazelcast().getManagementCenter().isEnabled());
@@ -146,9 +253,53 @@ public class CacheConfiguration implements DisposableBean {
         return mapConfig;
     }
 
-    private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties) {
+    private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties,
+                                                ApplicationProperties applicationProperties) {
         MapConfig mapConfig = new MapConfig();
         mapConfig.setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
+        ApplicationProperties.Cache.Hazelcast.NearCache nearCache =
+            applicationProperties.getCache().getHazelcast().getNearCache();
+        if (nearCache.isEnabled()) {
+            mapConfig.setNearCacheConfig(initializeNearCacheConfig(nearCache));
+        }
         return mapConfig;
     }
+
+    private NearCacheConfig initializeNearCacheConfig(ApplicationProperties.Cache.Hazelcast.NearCache nearCache) {
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+
+        /*
+        OBJECT keeps entries deserialized, so that a near cache hit costs no deserialization,
+        BINARY keeps them serialized, which is more compact.
+        */
+        nearCacheConfig.setInMemoryFormat(nearCache.getInMemoryFormat());
+
+        /*
+        Maximum number of entries kept by each member, the eviction policy
+        picks the entries to remove once it is reached.
+        */
+        nearCacheConfig.setEvictionConfig(new EvictionConfig(nearCache.getMaxSize(),
+            EvictionConfig.MaxSizePolicy.ENTRY_COUNT, nearCache.getEvictionPolicy()));
+        nearCacheConfig.setTimeToLiveSeconds(nearCache.getTimeToLiveSeconds());
+        nearCacheConfig.setMaxIdleSeconds(nearCache.getMaxIdleSeconds());
+
+        /*
+        When an entry is updated or removed on its owner, the near caches
+        of the other members are invalidated, see initializeNearCacheInvalidation.
+        */
+        nearCacheConfig.setInvalidateOnChange(nearCache.isInvalidateOnChange());
+        nearCacheConfig.setCacheLocalEntries(nearCache.isCacheLocalEntries());
+        return nearCacheConfig;
+    }
+
+    private void initializeNearCacheInvalidation(Config config, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache.Hazelcast.NearCache.InvalidationBatch invalidationBatch =
+            applicationProperties.getCache().getHazelcast().getNearCache().getInvalidationBatch();
+        config.setProperty(GroupProperty.MAP_INVALIDATION_MESSAGE_BATCH_ENABLED.getName(),
+            String.valueOf(invalidationBatch.isEnabled()));
+        config.setProperty(GroupProperty.MAP_INVALIDATION_MESSAGE_BATCH_SIZE.getName(),
+            String.valueOf(invalidationBatch.getSize()));
+        config.setProperty(GroupProperty.MAP_INVALIDATION_MESSAGE_BATCH_FREQUENCY_SECONDS.getName(),
+            String.valueOf(invalidationBatch.getFrequencySeconds()));
+    }
 }
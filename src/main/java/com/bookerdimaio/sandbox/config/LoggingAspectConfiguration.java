@@ -1,10 +1,17 @@
 package com.bookerdimaio.sandbox.config;
 
 import com.bookerdimaio.sandbox.aop.logging.LoggingAspect;
+import com.bookerdimaio.sandbox.aop.logging.LoggingAspectEndpoint;
+import com.bookerdimaio.sandbox.aop.logging.SlowCallDetector;
+import com.bookerdimaio.sandbox.aop.logging.SlowCallsEndpoint;
 
-import io.github.jhipster.config.JHipsterConstants;
-
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import org.springframework.context.annotation.*;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 
 @Configuration
@@ -12,8 +19,46 @@ import org.springframework.core.env.Environment;
 public class LoggingAspectConfiguration {
 
     @Bean
-    @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect(Environment env) {
-        return new LoggingAspect(env);
+    public SlowCallDetector slowCallDetector(ApplicationProperties applicationProperties,
+                                             MeterRegistry meterRegistry) {
+        return new SlowCallDetector(applicationProperties, meterRegistry);
+    }
+
+    @Bean
+    public LoggingAspect loggingAspect(Environment env, ApplicationProperties applicationProperties,
+                                       MeterRegistry meterRegistry, SlowCallDetector slowCallDetector) {
+        return new LoggingAspect(env, applicationProperties, meterRegistry, slowCallDetector);
+    }
+
+    /**
+     * Disable the histogram and percentiles of the {@link LoggingAspect} timers. Ordered after the filter of the
+     * {@code management.metrics.distribution} properties, which would enable them otherwise.
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public MeterFilter sampledTimersMeterFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(LoggingAspect.TIMER_NAME)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                    .percentilesHistogram(false)
+                    .percentiles()
+                    .build()
+                    .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public LoggingAspectEndpoint loggingAspectEndpoint(LoggingAspect loggingAspect) {
+        return new LoggingAspectEndpoint(loggingAspect);
+    }
+
+    @Bean
+    public SlowCallsEndpoint slowCallsEndpoint(SlowCallDetector slowCallDetector) {
+        return new SlowCallsEndpoint(slowCallDetector);
     }
 }
@@ -0,0 +1,56 @@
+package com.bookerdimaio.sandbox.config;
+
+import io.github.jhipster.config.JHipsterConstants;
+import io.github.jhipster.config.liquibase.AsyncSpringLiquibase;
+import liquibase.exception.LiquibaseException;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link AsyncSpringLiquibase} telling when the database migration is over, whether it ran synchronously or
+ * asynchronously, so that work needing the migrated schema can wait for it.
+ */
+public class ObservableSpringLiquibase extends AsyncSpringLiquibase {
+
+    private final Environment env;
+
+    private final CompletableFuture<Void> migration = new CompletableFuture<>();
+
+    public ObservableSpringLiquibase(Executor executor, Environment env) {
+        super(executor, env);
+        this.env = env;
+    }
+
+    /**
+     * Get the database migration.
+     *
+     * @return a stage completed once the migration succeeded, or was skipped with the {@code no-liquibase} profile,
+     * and completed exceptionally if it failed.
+     */
+    public CompletionStage<Void> getMigration() {
+        return migration;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        super.afterPropertiesSet();
+        if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_NO_LIQUIBASE))) {
+            migration.complete(null);
+        }
+    }
+
+    @Override
+    protected void initDb() throws LiquibaseException {
+        try {
+            super.initDb();
+            migration.complete(null);
+        } catch (LiquibaseException | RuntimeException e) {
+            migration.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.bookerdimaio.sandbox.config;
 import com.bookerdimaio.sandbox.security.*;
 import com.bookerdimaio.sandbox.security.jwt.*;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -22,10 +23,13 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final TokenProvider tokenProvider;
     private final SecurityProblemSupport problemSupport;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfiguration(TokenProvider tokenProvider, SecurityProblemSupport problemSupport) {
+    public SecurityConfiguration(TokenProvider tokenProvider, SecurityProblemSupport problemSupport,
+        MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
         this.problemSupport = problemSupport;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -73,6 +77,6 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(tokenProvider, meterRegistry);
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 @Component
 public class AuditEventConverter {
@@ -21,15 +22,31 @@ public class AuditEventConverter {
         if (persistentAuditEvents == null) {
             return Collections.emptyList();
         }
-        List<AuditEvent> auditEvents = new ArrayList<>();
+        List<AuditEvent> auditEvents = persistentAuditEvents instanceof Collection ?
+            new ArrayList<>(((Collection<?>) persistentAuditEvents).size()) : new ArrayList<>();
         for (PersistentAuditEvent persistentAuditEvent : persistentAuditEvents) {
             auditEvents.add(convertToAuditEvent(persistentAuditEvent));
         }
         return auditEvents;
     }
 
+    /**
+     * Convert a stream of {@link PersistentAuditEvent}s to a stream of {@link AuditEvent}s, for result sets too
+     * large to be converted to a list.
+     * <p>
+     * Events are converted lazily, as the returned stream is consumed.
+     *
+     * @param persistentAuditEvents the stream to convert.
+     * @return the converted stream.
+     */
+    public Stream<AuditEvent> convertToAuditEvent(Stream<PersistentAuditEvent> persistentAuditEvents) {
+        return persistentAuditEvents.map(this::convertToAuditEvent);
+    }
+
     /**
      * Convert a {@link PersistentAuditEvent} to an {@link AuditEvent}.
+     * <p>
+     * The data is read from the event data table, or from the event row if it was stored there.
      *
      * @param persistentAuditEvent the event to convert.
      * @return the converted list.
@@ -38,25 +55,27 @@ public class AuditEventConverter {
         if (persistentAuditEvent == null) {
             return null;
         }
+        Map<String, String> data = persistentAuditEvent.getData();
+        if ((data == null || data.isEmpty()) && persistentAuditEvent.getInlineData() != null) {
+            data = persistentAuditEvent.getInlineData();
+        }
         return new AuditEvent(persistentAuditEvent.getAuditEventDate(), persistentAuditEvent.getPrincipal(),
-            persistentAuditEvent.getAuditEventType(), convertDataToObjects(persistentAuditEvent.getData()));
+            persistentAuditEvent.getAuditEventType(), convertDataToObjects(data));
     }
 
     /**
      * Internal conversion. This is needed to support the current SpringBoot actuator {@code AuditEventRepository} interface.
+     * <p>
+     * The data is not copied: the result is a read-only view of it.
      *
      * @param data the data to convert.
      * @return a map of {@link String}, {@link Object}.
      */
     public Map<String, Object> convertDataToObjects(Map<String, String> data) {
-        Map<String, Object> results = new HashMap<>();
-
-        if (data != null) {
-            for (Map.Entry<String, String> entry : data.entrySet()) {
-                results.put(entry.getKey(), entry.getValue());
-            }
+        if (data == null || data.isEmpty()) {
+            return Collections.emptyMap();
         }
-        return results;
+        return Collections.unmodifiableMap(data);
     }
 
     /**
@@ -67,20 +86,28 @@ public class AuditEventConverter {
      * @return a map of {@link String}, {@link String}.
      */
     public Map<String, String> convertDataToStrings(Map<String, Object> data) {
-        Map<String, String> results = new HashMap<>();
-
-        if (data != null) {
-            for (Map.Entry<String, Object> entry : data.entrySet()) {
-                // Extract the data that will be saved.
-                if (entry.getValue() instanceof WebAuthenticationDetails) {
-                    WebAuthenticationDetails authenticationDetails = (WebAuthenticationDetails) entry.getValue();
-                    results.put("remoteAddress", authenticationDetails.getRemoteAddress());
-                    results.put("sessionId", authenticationDetails.getSessionId());
-                } else {
-                    results.put(entry.getKey(), Objects.toString(entry.getValue()));
-                }
+        if (data == null) {
+            return new HashMap<>();
+        }
+        // Authentication details are saved as two entries
+        Map<String, String> results = new HashMap<>(hashMapCapacity(data.size() + 1));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            // Extract the data that will be saved.
+            if (entry.getValue() instanceof WebAuthenticationDetails) {
+                WebAuthenticationDetails authenticationDetails = (WebAuthenticationDetails) entry.getValue();
+                results.put("remoteAddress", authenticationDetails.getRemoteAddress());
+                results.put("sessionId", authenticationDetails.getSessionId());
+            } else {
+                results.put(entry.getKey(), Objects.toString(entry.getValue()));
             }
         }
         return results;
     }
+
+    /**
+     * The initial capacity of a {@link HashMap} holding a number of entries without being resized.
+     */
+    private static int hashMapCapacity(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
 }
@@ -0,0 +1,91 @@
+package com.bookerdimaio.sandbox.config.audit;
+
+import com.bookerdimaio.sandbox.domain.AuditEventDataConverter;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liquibase change copying the rows of the {@code jhi_persistent_audit_evt_data} table to the {@code event_data}
+ * column of their event, for the databases which cannot aggregate them to JSON in SQL.
+ */
+public class InlineAuditEventDataChange implements CustomTaskChange {
+
+    private static final String SELECT_DATA_SQL = "select event_id, name, value from jhi_persistent_audit_evt_data " +
+        "order by event_id";
+
+    private static final String UPDATE_EVENT_SQL = "update jhi_persistent_audit_event set event_data = ? " +
+        "where event_id = ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    private int updated;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(UPDATE_EVENT_SQL)) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rs = select.executeQuery(SELECT_DATA_SQL)) {
+                long eventId = 0;
+                Map<String, String> data = new HashMap<>();
+                while (rs.next()) {
+                    if (!data.isEmpty() && rs.getLong(1) != eventId) {
+                        addUpdate(update, eventId, data);
+                    }
+                    eventId = rs.getLong(1);
+                    data.put(rs.getString(2), rs.getString(3));
+                }
+                if (!data.isEmpty()) {
+                    addUpdate(update, eventId, data);
+                }
+            }
+            update.executeBatch();
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not copy the audit event data to the event_data column", e);
+        }
+    }
+
+    private void addUpdate(PreparedStatement update, long eventId, Map<String, String> data) throws SQLException {
+        update.setString(1, AuditEventDataConverter.toJson(data));
+        update.setLong(2, eventId);
+        update.addBatch();
+        data.clear();
+        if (++updated % BATCH_SIZE == 0) {
+            update.executeBatch();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Copied the data of " + updated + " audit events to the event_data column";
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources used
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,160 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.monitor.LocalMapStats;
+import com.hazelcast.monitor.NearCacheStats;
+
+import java.io.Serializable;
+
+/**
+ * Statistics of a Hazelcast map on one member, as reported by the {@code caches} endpoint.
+ * <p>
+ * Latencies are averages in milliseconds. The map counters are reported as Hazelcast counts them, without deriving
+ * misses: the hits are those of the entries currently owned, while the gets include those of evicted or removed
+ * entries and of missing keys.
+ */
+public class CacheStatistics implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private final long hits;
+
+    private final long gets;
+
+    private final long puts;
+
+    private final long removals;
+
+    private final long ownedEntryCount;
+
+    private final long backupEntryCount;
+
+    private final long ownedEntryMemoryCost;
+
+    private final double averageGetLatency;
+
+    private final double averagePutLatency;
+
+    private final NearCache nearCache;
+
+    public CacheStatistics(LocalMapStats stats) {
+        this.hits = stats.getHits();
+        this.gets = stats.getGetOperationCount();
+        this.puts = stats.getPutOperationCount();
+        this.removals = stats.getRemoveOperationCount();
+        this.ownedEntryCount = stats.getOwnedEntryCount();
+        this.backupEntryCount = stats.getBackupEntryCount();
+        this.ownedEntryMemoryCost = stats.getOwnedEntryMemoryCost();
+        this.averageGetLatency = average(stats.getTotalGetLatency(), stats.getGetOperationCount());
+        this.averagePutLatency = average(stats.getTotalPutLatency(), stats.getPutOperationCount());
+        this.nearCache = stats.getNearCacheStats() == null ? null : new NearCache(stats.getNearCacheStats());
+    }
+
+    private static double average(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getGets() {
+        return gets;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getRemovals() {
+        return removals;
+    }
+
+    public long getOwnedEntryCount() {
+        return ownedEntryCount;
+    }
+
+    public long getBackupEntryCount() {
+        return backupEntryCount;
+    }
+
+    public long getOwnedEntryMemoryCost() {
+        return ownedEntryMemoryCost;
+    }
+
+    public double getAverageGetLatency() {
+        return averageGetLatency;
+    }
+
+    public double getAveragePutLatency() {
+        return averagePutLatency;
+    }
+
+    /**
+     * Get the near cache statistics.
+     *
+     * @return the statistics, or {@code null} if the map has no near cache.
+     */
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * Statistics of the near cache of a map on one member.
+     */
+    public static class NearCache implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long ownedEntryCount;
+
+        private final long ownedEntryMemoryCost;
+
+        private final long evictions;
+
+        private final long expirations;
+
+        private final long invalidations;
+
+        NearCache(NearCacheStats stats) {
+            this.hits = stats.getHits();
+            this.misses = stats.getMisses();
+            this.ownedEntryCount = stats.getOwnedEntryCount();
+            this.ownedEntryMemoryCost = stats.getOwnedEntryMemoryCost();
+            this.evictions = stats.getEvictions();
+            this.expirations = stats.getExpirations();
+            this.invalidations = stats.getInvalidations();
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getOwnedEntryCount() {
+            return ownedEntryCount;
+        }
+
+        public long getOwnedEntryMemoryCost() {
+            return ownedEntryMemoryCost;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.PartitionService;
+import com.hazelcast.query.PartitionPredicate;
+import com.hazelcast.query.TruePredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Preloads cache regions when the instance starts, so that the first requests it serves do not all miss.
+ * <p>
+ * The warm-up starts once the application is ready and the database migration is over. A region already
+ * populated in the cluster is read from the peer members in batches, which fills the near cache of this member;
+ * an empty region of an entity is loaded from the database in batches, which puts the entities in the
+ * second-level cache. The entries of a populated region are listed one partition at a time, so that no member
+ * builds the key set of a whole region, and the identifiers of an entity are read by pages, in identifier order,
+ * each page being queued as a batch once read. Batches of all regions run in parallel on the threads of the
+ * warm-up executor, and no thread waits for them.
+ * <p>
+ * Until the warm-up is over, the health status is {@code OUT_OF_SERVICE}, so that the instance is not registered
+ * as up in the discovery service and receives no traffic. It turns {@code UP} once the warm-up is done, has
+ * failed, or has timed out: a cold instance is better than no instance.
+ */
+public class CacheWarmUp implements HealthIndicator, DisposableBean {
+
+    /**
+     * Progress of the warm-up.
+     */
+    public enum State {
+        /** The warm-up waits for the application and the database migration. */
+        WAITING,
+        /** The regions are being loaded. */
+        WARMING_UP,
+        /** Every region was loaded. */
+        DONE,
+        /** Some regions could not be loaded, or not in time. */
+        INCOMPLETE
+    }
+
+    /**
+     * Where the entries of a region were loaded from.
+     */
+    public enum Source {
+        PEERS, DATABASE, NONE
+    }
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmUp.class);
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CompletionStage<?> migration;
+
+    private final List<String> regions;
+
+    private final int batchSize;
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    private final long timeoutInNanos;
+
+    private final Map<String, RegionReport> reports = new LinkedHashMap<>();
+
+    private final Queue<Runnable> batches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger workers = new AtomicInteger();
+
+    /**
+     * The number of batches queued or running, the warm-up is over when it drops to zero.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+
+    private final CompletableFuture<State> completion = new CompletableFuture<>();
+
+    private volatile long deadline;
+
+    private volatile boolean started;
+
+    private volatile boolean failed;
+
+    private volatile long start;
+
+    /**
+     * Create the warm-up.
+     *
+     * @param hazelcastInstance the Hazelcast instance holding the regions.
+     * @param entityManagerFactory the entity manager factory used to load the entity regions from the database.
+     * @param executor the executor running the warm-up, with a thread for each batch loaded in parallel.
+     * @param migration the database migration to wait for.
+     * @param regions the names of the regions to preload, entity regions are named after the entity class.
+     * @param batchSize the number of entries loaded at once.
+     * @param parallelism the number of batches loaded in parallel.
+     * @param timeoutInSeconds the time after which the instance is reported up, even if the warm-up is not over.
+     */
+    public CacheWarmUp(HazelcastInstance hazelcastInstance, EntityManagerFactory entityManagerFactory,
+                       Executor executor, CompletionStage<?> migration, List<String> regions, int batchSize,
+                       int parallelism, long timeoutInSeconds) {
+        this.hazelcastInstance = hazelcastInstance;
+        this.entityManagerFactory = entityManagerFactory;
+        this.executor = executor;
+        this.migration = migration;
+        this.regions = new ArrayList<>(regions);
+        this.batchSize = batchSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.timeoutInNanos = TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        warmUp();
+    }
+
+    /**
+     * Get the progress of the warm-up, which is {@link State#INCOMPLETE} once the timeout has elapsed.
+     *
+     * @return the state of the warm-up.
+     */
+    public State getState() {
+        if (started && System.nanoTime() - deadline > 0) {
+            finish(State.INCOMPLETE, "timed out");
+        }
+        return state.get();
+    }
+
+    @Override
+    public Health health() {
+        State current = getState();
+        Health.Builder builder = current == State.WAITING || current == State.WARMING_UP ?
+            Health.outOfService() : Health.up();
+        builder.withDetail("state", current);
+        synchronized (reports) {
+            reports.forEach(builder::withDetail);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void destroy() {
+        finish(State.INCOMPLETE, "interrupted");
+    }
+
+    /**
+     * Load every region once the database migration is over, within the timeout.
+     *
+     * @return the end of the warm-up, with its final state.
+     */
+    CompletableFuture<State> warmUp() {
+        deadline = System.nanoTime() + timeoutInNanos;
+        started = true;
+        migration.whenCompleteAsync((result, failure) -> {
+            if (failure != null) {
+                log.warn("The database migration failed, warming up the caches anyway: {}", failure.toString());
+            }
+            load();
+        }, executor);
+        return completion;
+    }
+
+    /**
+     * Queue the first batches of every region.
+     */
+    private void load() {
+        if (!state.compareAndSet(State.WAITING, State.WARMING_UP)) {
+            return;
+        }
+        log.info("Warming up cache regions {}", regions);
+        start = System.nanoTime();
+        // Held until every region is queued, so that the warm-up does not end in between
+        pending.incrementAndGet();
+        for (String region : regions) {
+            try {
+                queueRegion(region);
+            } catch (RuntimeException e) {
+                log.warn("Could not warm up cache region {}: {}", region, e.toString());
+                failed = true;
+            }
+        }
+        completeBatch();
+    }
+
+    /**
+     * Queue a batch, and start a worker unless as many as batches may be loaded in parallel are running.
+     */
+    private void queue(Runnable batch) {
+        pending.incrementAndGet();
+        batches.add(batch);
+        if (startWorker()) {
+            executor.execute(this::work);
+        }
+    }
+
+    private boolean startWorker() {
+        int running;
+        while ((running = workers.get()) < parallelism) {
+            if (workers.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Load batches until none is left.
+     */
+    private void work() {
+        do {
+            Runnable batch;
+            while (getState() == State.WARMING_UP && (batch = batches.poll()) != null) {
+                try {
+                    batch.run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not load a batch of cache entries: {}", e.toString());
+                    failed = true;
+                }
+                completeBatch();
+            }
+            workers.decrementAndGet();
+            // A batch queued while this worker was stopping may have found no worker to start
+        } while (!batches.isEmpty() && getState() == State.WARMING_UP && startWorker());
+    }
+
+    private void completeBatch() {
+        if (pending.decrementAndGet() == 0) {
+            finish(failed ? State.INCOMPLETE : State.DONE, failed ? "incomplete" : "done");
+        }
+    }
+
+    private void finish(State result, String outcome) {
+        State current = state.get();
+        if ((current == State.WAITING || current == State.WARMING_UP) && state.compareAndSet(current, result)) {
+            batches.clear();
+            if (current == State.WAITING) {
+                log.warn("The cache warm-up {} before the end of the database migration", outcome);
+            } else {
+                log.info("Cache warm-up {} in {} ms", outcome,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            completion.complete(result);
+        }
+    }
+
+    private void queueRegion(String region) {
+        IMap<Object, Object> map = hazelcastInstance.getMap(region);
+        if (!map.isEmpty()) {
+            RegionReport report = report(region, Source.PEERS);
+            for (Object partitionKey : partitionKeys()) {
+                queue(() -> {
+                    Set<Object> keys = map.keySet(new PartitionPredicate<>(partitionKey, TruePredicate.INSTANCE));
+                    List<Object> partition = new ArrayList<>(keys);
+                    for (int from = 0; from < partition.size(); from += batchSize) {
+                        List<Object> batch = partition.subList(from, Math.min(from + batchSize, partition.size()));
+                        report.loaded(map.getAll(new HashSet<>(batch)).size());
+                    }
+                });
+            }
+            return;
+        }
+        EntityType<?> entityType = findEntityType(region);
+        if (entityType == null) {
+            report(region, Source.NONE);
+            return;
+        }
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        RegionReport report = report(region, Source.DATABASE);
+        queue(() -> readIds(entityType.getName(), idName, report, null));
+    }
+
+    /**
+     * Read the page of identifiers following the given one, then queue the batch loading their entities and the
+     * read of the next page. A page is read only when a worker is free, so that few pages are held at once.
+     */
+    private void readIds(String entityName, String idName, RegionReport report, Object last) {
+        List<?> ids;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Query query = entityManager.createQuery("select e." + idName + " from " + entityName + " e" +
+                (last == null ? "" : " where e." + idName + " > :last") + " order by e." + idName)
+                .setMaxResults(batchSize);
+            if (last != null) {
+                query.setParameter("last", last);
+            }
+            ids = query.getResultList();
+        } finally {
+            entityManager.close();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        String batchQuery = "select e from " + entityName + " e where e." + idName + " in :ids";
+        queue(() -> {
+            EntityManager batchEntityManager = entityManagerFactory.createEntityManager();
+            try {
+                report.loaded(batchEntityManager.createQuery(batchQuery).setParameter("ids", ids)
+                    .getResultList().size());
+            } finally {
+                batchEntityManager.close();
+            }
+        });
+        if (ids.size() == batchSize) {
+            Object next = ids.get(ids.size() - 1);
+            queue(() -> readIds(entityName, idName, report, next));
+        }
+    }
+
+    /**
+     * Get a key owned by each partition, so that the entries of a map can be listed one partition at a time.
+     */
+    private List<Object> partitionKeys() {
+        PartitionService partitionService = hazelcastInstance.getPartitionService();
+        Object[] keys = new Object[partitionService.getPartitions().size()];
+        int found = 0;
+        // Keys are spread evenly over the partitions, a few thousand candidates cover them all
+        for (int candidate = 0; found < keys.length; candidate++) {
+            String key = Integer.toString(candidate);
+            int partitionId = partitionService.getPartition(key).getPartitionId();
+            if (keys[partitionId] == null) {
+                keys[partitionId] = key;
+                found++;
+            }
+        }
+        return Arrays.asList(keys);
+    }
+
+    private EntityType<?> findEntityType(String region) {
+        if (entityManagerFactory == null) {
+            return null;
+        }
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            if (entityType.getJavaType().getName().equals(region)) {
+                return entityType;
+            }
+        }
+        return null;
+    }
+
+    private RegionReport report(String region, Source source) {
+        RegionReport report = new RegionReport(source);
+        synchronized (reports) {
+            reports.put(region, report);
+        }
+        return report;
+    }
+
+    /**
+     * Warm-up of a region, reported in the health details.
+     */
+    public static final class RegionReport {
+
+        private final Source source;
+
+        private final AtomicInteger entries = new AtomicInteger();
+
+        RegionReport(Source source) {
+            this.source = source;
+        }
+
+        void loaded(int count) {
+            entries.addAndGet(count);
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public int getEntries() {
+            return entries.get();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of a query cached by the {@link QueryResultCache}: the identifiers of the entities it returned, and the
+ * dependency keys whose invalidation drops it.
+ */
+public class CachedQueryResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Serializable> ids;
+
+    private final Set<String> dependencies;
+
+    public CachedQueryResult(List<Serializable> ids, Set<String> dependencies) {
+        this.ids = new ArrayList<>(ids);
+        this.dependencies = new LinkedHashSet<>(dependencies);
+    }
+
+    public List<Serializable> getIds() {
+        return ids;
+    }
+
+    /**
+     * Get the dependency keys of the result, queried through the {@code dependencies[any]} index.
+     *
+     * @return the dependency keys.
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+}
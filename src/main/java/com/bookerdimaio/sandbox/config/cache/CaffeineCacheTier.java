@@ -0,0 +1,39 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Local tier keeping the entries on the heap, in a Caffeine cache.
+ */
+public class CaffeineCacheTier implements LocalCacheTier {
+
+    private final Cache<Object, org.springframework.cache.Cache.ValueWrapper> cache;
+
+    public CaffeineCacheTier(Cache<Object, org.springframework.cache.Cache.ValueWrapper> cache) {
+        this.cache = cache;
+    }
+
+    public Cache<Object, org.springframework.cache.Cache.ValueWrapper> getCache() {
+        return cache;
+    }
+
+    @Override
+    public org.springframework.cache.Cache.ValueWrapper get(Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(Object key, org.springframework.cache.Cache.ValueWrapper value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,54 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.AbstractDiscoveryStrategy;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hazelcast discovery strategy listing the members of the cluster from the Spring Cloud {@link DiscoveryClient}.
+ * <p>
+ * Hazelcast asks for the members when joining, and again on every run of its split-brain merge task, so instances
+ * registered after this member started are found, and clusters formed separately merge.
+ */
+public class DiscoveryClientDiscoveryStrategy extends AbstractDiscoveryStrategy {
+
+    private final DiscoveryClient discoveryClient;
+
+    private final String serviceId;
+
+    private final Function<ServiceInstance, InetSocketAddress> addressResolver;
+
+    public DiscoveryClientDiscoveryStrategy(ILogger logger, DiscoveryClient discoveryClient, String serviceId,
+                                            Function<ServiceInstance, InetSocketAddress> addressResolver) {
+        super(logger, Collections.emptyMap());
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.addressResolver = addressResolver;
+    }
+
+    @Override
+    public Iterable<DiscoveryNode> discoverNodes() {
+        List<DiscoveryNode> nodes = new ArrayList<>();
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            InetSocketAddress address = addressResolver.apply(instance);
+            try {
+                nodes.add(new SimpleDiscoveryNode(new Address(address.getHostString(), address.getPort())));
+            } catch (UnknownHostException e) {
+                getLogger().warning("Ignoring Hazelcast member " + address + " of unknown host");
+            }
+        }
+        getLogger().finest("Discovered Hazelcast members " + nodes);
+        return nodes;
+    }
+}
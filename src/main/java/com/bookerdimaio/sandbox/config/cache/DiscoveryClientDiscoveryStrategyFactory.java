@@ -0,0 +1,58 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.config.properties.PropertyDefinition;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.DiscoveryStrategy;
+import com.hazelcast.spi.discovery.DiscoveryStrategyFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates the {@link DiscoveryClientDiscoveryStrategy}; it is registered as an instance in the Hazelcast
+ * configuration, as the strategy needs the {@link DiscoveryClient} bean.
+ */
+public class DiscoveryClientDiscoveryStrategyFactory implements DiscoveryStrategyFactory {
+
+    private final DiscoveryClient discoveryClient;
+
+    private final String serviceId;
+
+    private final Function<ServiceInstance, InetSocketAddress> addressResolver;
+
+    /**
+     * Create the factory.
+     *
+     * @param discoveryClient the discovery client.
+     * @param serviceId the service ID of the cluster members.
+     * @param addressResolver the Hazelcast address of a service instance.
+     */
+    public DiscoveryClientDiscoveryStrategyFactory(DiscoveryClient discoveryClient, String serviceId,
+                                                   Function<ServiceInstance, InetSocketAddress> addressResolver) {
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.addressResolver = addressResolver;
+    }
+
+    @Override
+    public Class<? extends DiscoveryStrategy> getDiscoveryStrategyType() {
+        return DiscoveryClientDiscoveryStrategy.class;
+    }
+
+    @Override
+    public DiscoveryStrategy newDiscoveryStrategy(DiscoveryNode discoveryNode, ILogger logger,
+                                                  Map<String, Comparable> properties) {
+        return new DiscoveryClientDiscoveryStrategy(logger, discoveryClient, serviceId, addressResolver);
+    }
+
+    @Override
+    public Collection<PropertyDefinition> getConfigurationProperties() {
+        return Collections.emptyList();
+    }
+}
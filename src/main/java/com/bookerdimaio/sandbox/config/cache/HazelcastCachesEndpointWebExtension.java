@@ -0,0 +1,81 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IExecutorService;
+import com.hazelcast.core.Member;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpointWebExtension;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Extends the {@code caches} actuator endpoint with the statistics of every Hazelcast map on every cluster member.
+ * <p>
+ * {@code GET /management/caches} runs a {@link MemberCacheStatisticsTask} on all members and returns their
+ * statistics. The other operations, such as clearing a cache, are those of Spring Boot.
+ */
+@EndpointWebExtension(endpoint = CachesEndpoint.class)
+public class HazelcastCachesEndpointWebExtension extends CachesEndpointWebExtension {
+
+    static final String EXECUTOR_NAME = "cache-statistics";
+
+    private static final long MEMBER_TIMEOUT_IN_SECONDS = 5;
+
+    private final Logger log = LoggerFactory.getLogger(HazelcastCachesEndpointWebExtension.class);
+
+    private final HazelcastInstance hazelcastInstance;
+
+    public HazelcastCachesEndpointWebExtension(CachesEndpoint delegate, HazelcastInstance hazelcastInstance) {
+        super(delegate);
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @ReadOperation
+    public HazelcastCachesReport caches() {
+        IExecutorService executorService = hazelcastInstance.getExecutorService(EXECUTOR_NAME);
+        Map<Member, Future<MemberCacheStatistics>> futures =
+            executorService.submitToAllMembers(new MemberCacheStatisticsTask());
+        List<MemberCacheStatistics> members = new ArrayList<>();
+        futures.forEach((member, future) -> {
+            try {
+                members.add(future.get(MEMBER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                members.add(MemberCacheStatistics.unavailable(member.getAddress().toString(), member.isLiteMember(),
+                    "interrupted"));
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Could not collect the cache statistics of member {}: {}", member, e.toString());
+                members.add(MemberCacheStatistics.unavailable(member.getAddress().toString(), member.isLiteMember(),
+                    e.toString()));
+            }
+        });
+        members.sort((first, second) -> first.getAddress().compareTo(second.getAddress()));
+        return new HazelcastCachesReport(members);
+    }
+
+    /**
+     * Statistics of the Hazelcast maps of every cluster member.
+     */
+    public static final class HazelcastCachesReport {
+
+        private final List<MemberCacheStatistics> members;
+
+        HazelcastCachesReport(List<MemberCacheStatistics> members) {
+            this.members = members;
+        }
+
+        public List<MemberCacheStatistics> getMembers() {
+            return members;
+        }
+    }
+}
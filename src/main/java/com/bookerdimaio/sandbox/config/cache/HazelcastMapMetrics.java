@@ -0,0 +1,88 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.DistributedObjectEvent;
+import com.hazelcast.core.DistributedObjectListener;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.monitor.NearCacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.HazelcastCacheMetrics;
+
+/**
+ * Publishes the statistics of every Hazelcast map, Spring caches and Hibernate second-level cache regions alike.
+ * <p>
+ * Each map is bound to a {@link HazelcastCacheMetrics} (gets, hits, puts, owned and backup entries and
+ * memory, near cache requests and evictions, get/put/remove latencies). Maps having a near cache also get a
+ * {@code cache.near.hit.ratio} gauge. Meters use the tags of the caches bound by Spring Boot: {@code cache},
+ * {@code name} and {@code cacheManager}.
+ * <p>
+ * Maps, such as the Hibernate second-level cache regions, are created lazily: the meters of a map are registered
+ * when the map is created on this member, and removed when it is destroyed.
+ */
+public class HazelcastMapMetrics implements MeterBinder {
+
+    static final String CACHE_MANAGER = "cacheManager";
+
+    private final HazelcastInstance hazelcastInstance;
+
+    public HazelcastMapMetrics(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        hazelcastInstance.addDistributedObjectListener(new DistributedObjectListener() {
+
+            @Override
+            public void distributedObjectCreated(DistributedObjectEvent event) {
+                bindTo(registry, event.getDistributedObject());
+            }
+
+            @Override
+            public void distributedObjectDestroyed(DistributedObjectEvent event) {
+                if (MapService.SERVICE_NAME.equals(event.getServiceName())) {
+                    String mapName = String.valueOf(event.getObjectName());
+                    registry.getMeters().stream()
+                        .filter(meter -> meter.getId().getName().startsWith("cache.") &&
+                            mapName.equals(meter.getId().getTag("name")) &&
+                            CACHE_MANAGER.equals(meter.getId().getTag("cacheManager")))
+                        .forEach(registry::remove);
+                }
+            }
+        });
+        hazelcastInstance.getDistributedObjects().forEach(distributedObject -> bindTo(registry, distributedObject));
+    }
+
+    private void bindTo(MeterRegistry registry, DistributedObject distributedObject) {
+        if (!MapService.SERVICE_NAME.equals(distributedObject.getServiceName())) {
+            return;
+        }
+        IMap<?, ?> map = (IMap<?, ?>) distributedObject;
+        new HazelcastCacheMetrics(map, tags(map.getName())).bindTo(registry);
+        if (hazelcastInstance.getConfig().findMapConfig(map.getName()).getNearCacheConfig() != null) {
+            Gauge.builder("cache.near.hit.ratio", map, HazelcastMapMetrics::hitRatio)
+                .description("The ratio of near cache reads served locally")
+                .tag("cache", map.getName())
+                .tags(tags(map.getName()))
+                .register(registry);
+        }
+    }
+
+    private static Tags tags(String mapName) {
+        return Tags.of("name", mapName, "cacheManager", CACHE_MANAGER);
+    }
+
+    private static double hitRatio(IMap<?, ?> map) {
+        NearCacheStats stats = map.getLocalMapStats().getNearCacheStats();
+        if (stats == null) {
+            return Double.NaN;
+        }
+        long requests = stats.getHits() + stats.getMisses();
+        return requests == 0 ? Double.NaN : (double) stats.getHits() / requests;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Applies the per-region settings of {@code application.cache.hazelcast.regions} to a Hazelcast {@link Config}.
+ * <p>
+ * A region already configured under the same name, such as {@code default}, is updated in place. Any other region
+ * gets its own {@link MapConfig}, copied from the configuration its name currently matches (for instance the
+ * {@code com.bookerdimaio.sandbox.domain.*} configuration for an entity region) or from the {@code default}
+ * configuration when it matches none, then overridden with the settings set for the region.
+ */
+public final class HazelcastRegionConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(HazelcastRegionConfigurer.class);
+
+    private HazelcastRegionConfigurer() {
+    }
+
+    public static void configure(Config config, Map<String, ApplicationProperties.Cache.Hazelcast.Region> regions) {
+        regions.forEach((name, region) -> {
+            MapConfig mapConfig = config.getMapConfigs().get(name);
+            if (mapConfig == null) {
+                MapConfig matching = config.getMapConfigOrNull(name);
+                if (matching == null) {
+                    // Unlike findMapConfig, getMapConfigOrNull does not fall back to the default configuration
+                    matching = config.getMapConfigs().get("default");
+                }
+                mapConfig = matching != null ? new MapConfig(matching) : new MapConfig();
+                mapConfig.setName(name);
+                config.addMapConfig(mapConfig);
+            }
+            apply(mapConfig, region);
+            log.debug("Configured Hazelcast map {}: {}", name, mapConfig);
+        });
+    }
+
+    private static void apply(MapConfig mapConfig, ApplicationProperties.Cache.Hazelcast.Region region) {
+        if (region.getMaxSizePolicy() != null || region.getMaxSize() != null) {
+            MaxSizeConfig maxSizeConfig = new MaxSizeConfig(mapConfig.getMaxSizeConfig());
+            if (region.getMaxSizePolicy() != null) {
+                maxSizeConfig.setMaxSizePolicy(region.getMaxSizePolicy());
+            }
+            if (region.getMaxSize() != null) {
+                maxSizeConfig.setSize(region.getMaxSize());
+            }
+            mapConfig.setMaxSizeConfig(maxSizeConfig);
+        }
+        if (region.getEvictionPolicy() != null) {
+            mapConfig.setEvictionPolicy(region.getEvictionPolicy());
+        }
+        if (region.getTimeToLiveSeconds() != null) {
+            mapConfig.setTimeToLiveSeconds(region.getTimeToLiveSeconds());
+        }
+        if (region.getMaxIdleSeconds() != null) {
+            mapConfig.setMaxIdleSeconds(region.getMaxIdleSeconds());
+        }
+        if (region.getBackupCount() != null) {
+            mapConfig.setBackupCount(region.getBackupCount());
+        }
+        if (region.getAsyncBackupCount() != null) {
+            mapConfig.setAsyncBackupCount(region.getAsyncBackupCount());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Local tier of a {@link TwoTierCache}, holding copies of the distributed entries on this member.
+ */
+public interface LocalCacheTier {
+
+    /**
+     * Get the local copy of an entry.
+     *
+     * @param key the key.
+     * @return the value, or {@code null} if there is no local copy.
+     */
+    Cache.ValueWrapper get(Object key);
+
+    void put(Object key, Cache.ValueWrapper value);
+
+    void invalidate(Object key);
+
+    void invalidateAll();
+
+    /**
+     * Release the resources of the tier.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,60 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Statistics of every Hazelcast map of one cluster member, by map name.
+ */
+public class MemberCacheStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String address;
+
+    private final boolean liteMember;
+
+    private final Map<String, CacheStatistics> caches;
+
+    private final String error;
+
+    public MemberCacheStatistics(String address, boolean liteMember, Map<String, CacheStatistics> caches) {
+        this(address, liteMember, caches, null);
+    }
+
+    private MemberCacheStatistics(String address, boolean liteMember, Map<String, CacheStatistics> caches,
+                                  String error) {
+        this.address = address;
+        this.liteMember = liteMember;
+        this.caches = caches;
+        this.error = error;
+    }
+
+    /**
+     * Statistics of a member which could not be reached.
+     *
+     * @param address the address of the member.
+     * @param liteMember whether the member is a lite member.
+     * @param error the reason why the statistics are missing.
+     * @return the statistics, without any cache.
+     */
+    public static MemberCacheStatistics unavailable(String address, boolean liteMember, String error) {
+        return new MemberCacheStatistics(address, liteMember, null, error);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public boolean isLiteMember() {
+        return liteMember;
+    }
+
+    public Map<String, CacheStatistics> getCaches() {
+        return caches;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Member;
+import com.hazelcast.map.impl.MapService;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * Collects the local statistics of every map of the member it runs on.
+ */
+public class MemberCacheStatisticsTask implements Callable<MemberCacheStatistics>, HazelcastInstanceAware, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public MemberCacheStatistics call() {
+        Map<String, CacheStatistics> caches = new TreeMap<>();
+        for (DistributedObject distributedObject : hazelcastInstance.getDistributedObjects()) {
+            if (MapService.SERVICE_NAME.equals(distributedObject.getServiceName())) {
+                IMap<?, ?> map = (IMap<?, ?>) distributedObject;
+                caches.put(map.getName(), new CacheStatistics(map.getLocalMapStats()));
+            }
+        }
+        Member member = hazelcastInstance.getCluster().getLocalMember();
+        return new MemberCacheStatistics(member.getAddress().toString(), member.isLiteMember(), caches);
+    }
+}
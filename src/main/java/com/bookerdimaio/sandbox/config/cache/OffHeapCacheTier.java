@@ -0,0 +1,168 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.caffinitas.ohc.CacheSerializer;
+import org.caffinitas.ohc.Eviction;
+import org.caffinitas.ohc.OHCache;
+import org.caffinitas.ohc.OHCacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local tier keeping the entries in native memory, outside of the Java heap, so that large caches do not fill the
+ * old generation. It works on the open-source Hazelcast build, which only stores maps on the heap.
+ * <p>
+ * Keys and values are stored in their Hazelcast serialized form: a read deserializes the value, so this tier suits
+ * large caches better than small and hot ones. The tier has its own memory budget, and evicts the least recently
+ * used entries when it is reached.
+ */
+public class OffHeapCacheTier implements LocalCacheTier {
+
+    /**
+     * Marker of a cached {@code null} value, shorter than any serialized value.
+     */
+    private static final byte[] NULL_VALUE = {0};
+
+    private final Logger log = LoggerFactory.getLogger(OffHeapCacheTier.class);
+
+    private final OHCache<byte[], byte[]> cache;
+
+    private final SerializationService serializationService;
+
+    private final long timeToLiveInMillis;
+
+    /**
+     * Create the tier.
+     *
+     * @param serializationService the serialization service of the Hazelcast instance.
+     * @param capacityInBytes the memory budget.
+     * @param timeToLiveSeconds the time after which an entry expires, 0 for no expiration.
+     */
+    public OffHeapCacheTier(SerializationService serializationService, long capacityInBytes, long timeToLiveSeconds) {
+        this.serializationService = serializationService;
+        this.timeToLiveInMillis = TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+        this.cache = OHCacheBuilder.<byte[], byte[]>newBuilder()
+            .keySerializer(ByteArraySerializer.INSTANCE)
+            .valueSerializer(ByteArraySerializer.INSTANCE)
+            .capacity(capacityInBytes)
+            .eviction(Eviction.LRU)
+            .timeouts(timeToLiveSeconds > 0)
+            .build();
+    }
+
+    @Override
+    public Cache.ValueWrapper get(Object key) {
+        byte[] value = cache.get(toBytes(key));
+        if (value == null) {
+            return null;
+        }
+        if (value.length == NULL_VALUE.length) {
+            return new SimpleValueWrapper(null);
+        }
+        return new SimpleValueWrapper(serializationService.toObject(new HeapData(value)));
+    }
+
+    @Override
+    public void put(Object key, Cache.ValueWrapper value) {
+        byte[] bytes = value.get() == null ? NULL_VALUE : toBytes(value.get());
+        if (timeToLiveInMillis > 0) {
+            cache.put(toBytes(key), bytes, System.currentTimeMillis() + timeToLiveInMillis);
+        } else {
+            cache.put(toBytes(key), bytes);
+        }
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        cache.remove(toBytes(key));
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            cache.close();
+        } catch (IOException e) {
+            log.warn("Could not release the off-heap cache memory: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publish the statistics of the tier, with the tags of the Micrometer cache meters.
+     *
+     * @param registry the registry.
+     * @param tags the tags identifying the cache.
+     */
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        FunctionCounter.builder("cache.gets", cache, c -> c.stats().getHitCount())
+            .tags(tags).tag("result", "hit")
+            .description("The number of times cache lookup methods have returned a cached value.")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> c.stats().getMissCount())
+            .tags(tags).tag("result", "miss")
+            .description("The number of times cache lookup methods have returned an uncached (newly loaded) value")
+            .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().getEvictionCount())
+            .tags(tags)
+            .description("cache evictions")
+            .register(registry);
+        Gauge.builder("cache.size", cache, OHCache::size)
+            .tags(tags)
+            .description("The number of entries in this cache.")
+            .register(registry);
+        Gauge.builder("cache.off-heap.used", cache, OHCache::memUsed)
+            .tags(tags).baseUnit("bytes")
+            .description("Native memory used by the entries of the cache")
+            .register(registry);
+        Gauge.builder("cache.off-heap.capacity", cache, OHCache::capacity)
+            .tags(tags).baseUnit("bytes")
+            .description("Native memory budget of the cache")
+            .register(registry);
+    }
+
+    OHCache<byte[], byte[]> getCache() {
+        return cache;
+    }
+
+    private byte[] toBytes(Object object) {
+        Data data = serializationService.toData(object);
+        return data.toByteArray();
+    }
+
+    private enum ByteArraySerializer implements CacheSerializer<byte[]> {
+        INSTANCE;
+
+        @Override
+        public void serialize(byte[] value, ByteBuffer buffer) {
+            buffer.put(value);
+        }
+
+        @Override
+        public byte[] deserialize(ByteBuffer buffer) {
+            byte[] value = new byte[buffer.remaining()];
+            buffer.get(value);
+            return value;
+        }
+
+        @Override
+        public int serializedSize(byte[] value) {
+            return value.length;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapIndexConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Cluster-wide cache of query results, invalidated by the entity writes which may change them.
+ * <p>
+ * The Hibernate query cache drops every cached result of a table whenever a row of this table is written, which
+ * makes it useless for tables written often. This cache is opt-in, per query: a result is stored as the identifiers
+ * of the entities it returned, with the dependency keys which invalidate it:
+ * <ul>
+ * <li>{@code Entity#id} for every returned entity, dropping the result when one of them is updated or deleted;</li>
+ * <li>{@code Entity@attribute=value} for a query restricted to a partition of the table, such as the audit events
+ * of one principal, dropping the result when an entity of this partition is inserted or updated;</li>
+ * <li>{@code Entity@*} for a query over the whole table, dropping the result on every insert or update.</li>
+ * </ul>
+ * The {@link QueryResultInvalidator} computes the keys of the writes of a transaction, and drops the matching
+ * results with a single indexed query per written entity class once it is committed. A cached result is read back
+ * by loading its entities by identifier: from the second-level cache when they are in it, with a single query for
+ * the others.
+ * <p>
+ * Only writes made through Hibernate entities invalidate results: bulk JPQL updates and native queries bypass this
+ * cache, and their results stay until they expire. Queries run in a read-write transaction may see its uncommitted
+ * writes, they bypass the cache.
+ */
+public class QueryResultCache {
+
+    public static final String MAP_NAME = "query-results";
+
+    public static final String TIMESTAMPS_MAP_NAME = "query-result-timestamps";
+
+    static final String DEPENDENCIES_ATTRIBUTE = "dependencies[any]";
+
+    private final Logger log = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final IMap<String, CachedQueryResult> results;
+
+    private final IMap<String, Long> invalidationTimestamps;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public QueryResultCache(HazelcastInstance hazelcastInstance, EntityManagerFactory entityManagerFactory,
+                            MeterRegistry meterRegistry) {
+        this.hazelcastInstance = hazelcastInstance;
+        this.results = hazelcastInstance.getMap(MAP_NAME);
+        this.invalidationTimestamps = hazelcastInstance.getMap(TIMESTAMPS_MAP_NAME);
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.hits = Counter.builder("cache.query.gets").tag("cache", MAP_NAME).tag("result", "hit")
+            .description("The number of query results served from the query result cache")
+            .register(meterRegistry);
+        this.misses = Counter.builder("cache.query.gets").tag("cache", MAP_NAME).tag("result", "miss")
+            .description("The number of queries run because their result was not cached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Configuration of the map storing the results, indexed by dependency key.
+     *
+     * @param maxSize the maximum number of results per member.
+     * @param timeToLiveSeconds the time after which a result expires, 0 for no expiration.
+     * @return the map configuration.
+     */
+    public static MapConfig mapConfig(int maxSize, int timeToLiveSeconds) {
+        return new MapConfig(MAP_NAME)
+            .setInMemoryFormat(InMemoryFormat.OBJECT)
+            .setMaxSizeConfig(new MaxSizeConfig(maxSize, MaxSizeConfig.MaxSizePolicy.PER_NODE))
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setTimeToLiveSeconds(timeToLiveSeconds)
+            .addMapIndexConfig(new MapIndexConfig(DEPENDENCIES_ATTRIBUTE, false));
+    }
+
+    /**
+     * Get the result of a query over the whole table of an entity, invalidated by any write to this table.
+     *
+     * @param entityClass the class of the entities returned by the query.
+     * @param key the key of the query, including its parameters.
+     * @param query runs the query.
+     * @param <T> the type of the entities.
+     * @return the entities, cached or returned by the query.
+     */
+    public <T> List<T> getResultList(Class<T> entityClass, String key, Supplier<List<T>> query) {
+        return getResultList(entityClass, key, Collections.singleton(tableKey(entityClass.getName())), query);
+    }
+
+    /**
+     * Get the result of a query restricted to the entities having a given attribute value, invalidated by the
+     * writes to the entities having this value.
+     * <p>
+     * The query may have further restrictions, but every entity it returns must have this attribute value.
+     *
+     * @param entityClass the class of the entities returned by the query.
+     * @param key the key of the query, including its parameters.
+     * @param attribute the name of a basic attribute of the entity.
+     * @param value the value of the attribute.
+     * @param query runs the query.
+     * @param <T> the type of the entities.
+     * @return the entities, cached or returned by the query.
+     */
+    public <T> List<T> getResultList(Class<T> entityClass, String key, String attribute, Object value,
+                                     Supplier<List<T>> query) {
+        return getResultList(entityClass, key,
+            Collections.singleton(partitionKey(entityClass.getName(), attribute, value)), query);
+    }
+
+    private <T> List<T> getResultList(Class<T> entityClass, String key, Set<String> partitionKeys,
+                                      Supplier<List<T>> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() &&
+            !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+        String resultKey = entityClass.getName() + ':' + key;
+        CachedQueryResult cached = results.get(resultKey);
+        if (cached != null) {
+            List<T> entities = load(entityClass, cached.getIds());
+            if (entities != null) {
+                hits.increment();
+                return entities;
+            }
+        }
+        misses.increment();
+        long start = hazelcastInstance.getCluster().getClusterTime();
+        List<T> entities = query.get();
+        Long lastInvalidation = invalidationTimestamps.get(entityClass.getName());
+        // A write committed while the query was running may not be visible in its result
+        if (lastInvalidation == null || lastInvalidation < start) {
+            results.set(resultKey, toCachedResult(entityClass.getName(), entities, partitionKeys));
+        }
+        return entities;
+    }
+
+    /**
+     * Drop the results which may be changed by entities inserted without Hibernate, such as JDBC batch inserts,
+     * once they are committed.
+     *
+     * @param entityClass the class of the inserted entities.
+     * @param rows the basic attribute values of each inserted entity, by attribute name.
+     */
+    public void invalidateInserts(Class<?> entityClass, Collection<? extends Map<String, ?>> rows) {
+        Set<String> dependencies = new LinkedHashSet<>();
+        dependencies.add(tableKey(entityClass.getName()));
+        for (Map<String, ?> row : rows) {
+            row.forEach((attribute, value) -> {
+                if (value != null) {
+                    dependencies.add(partitionKey(entityClass.getName(), attribute, value));
+                }
+            });
+        }
+        invalidate(entityClass.getName(), dependencies, "insert");
+    }
+
+    /**
+     * Drop the results depending on any of the given keys.
+     *
+     * @param entityName the name of the written entity.
+     * @param dependencies the dependency keys of the write.
+     * @param cause the kind of write, used as a metric tag.
+     */
+    void invalidate(String entityName, Collection<String> dependencies, String cause) {
+        invalidationTimestamps.set(entityName, hazelcastInstance.getCluster().getClusterTime());
+        Set<String> keys = results.keySet(Predicates.in(DEPENDENCIES_ATTRIBUTE, dependencies.toArray(new String[0])));
+        keys.forEach(results::delete);
+        if (!keys.isEmpty()) {
+            log.debug("Invalidated {} cached query results on {} of {}", keys.size(), cause, entityName);
+        }
+        meterRegistry.counter("cache.query.invalidations", "cache", MAP_NAME, "entity", entityName, "cause", cause)
+            .increment(keys.size());
+    }
+
+    static String idKey(String entityName, Object id) {
+        return entityName + '#' + id;
+    }
+
+    static String partitionKey(String entityName, String attribute, Object value) {
+        return entityName + '@' + attribute + '=' + value;
+    }
+
+    static String tableKey(String entityName) {
+        return entityName + "@*";
+    }
+
+    private CachedQueryResult toCachedResult(String entityName, List<?> entities, Set<String> partitionKeys) {
+        List<Serializable> ids = new ArrayList<>(entities.size());
+        Set<String> dependencies = new LinkedHashSet<>(partitionKeys);
+        for (Object entity : entities) {
+            Serializable id = (Serializable) entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+            ids.add(id);
+            dependencies.add(idKey(entityName, id));
+        }
+        return new CachedQueryResult(ids, dependencies);
+    }
+
+    /**
+     * Load the entities of a cached result, in the order of the result. The entities in the second-level cache are
+     * read from it, the others are loaded with a single query.
+     *
+     * @return the entities, or {@code null} if some of them no longer exist.
+     */
+    private <T> List<T> load(Class<T> entityClass, List<Serializable> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        boolean transactional = entityManager != null;
+        if (!transactional) {
+            entityManager = entityManagerFactory.createEntityManager();
+        }
+        try {
+            Map<Object, T> entitiesById = new HashMap<>(ids.size() * 4 / 3 + 1);
+            List<Serializable> missing = new ArrayList<>();
+            for (Serializable id : ids) {
+                if (entityManagerFactory.getCache().contains(entityClass, id)) {
+                    T entity = entityManager.find(entityClass, id);
+                    if (entity != null) {
+                        entitiesById.put(id, entity);
+                        continue;
+                    }
+                }
+                missing.add(id);
+            }
+            if (!missing.isEmpty()) {
+                EntityType<T> entityType = entityManagerFactory.getMetamodel().entity(entityClass);
+                String idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+                entityManager.createQuery("select e from " + entityType.getName() + " e where e." + idAttribute +
+                    " in :ids", entityClass)
+                    .setParameter("ids", missing)
+                    .getResultList()
+                    .forEach(entity -> entitiesById.put(
+                        entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity), entity));
+            }
+            List<T> result = new ArrayList<>(ids.size());
+            for (Serializable id : ids) {
+                T entity = entitiesById.get(id);
+                if (entity == null) {
+                    return null;
+                }
+                result.add(entity);
+            }
+            return result;
+        } finally {
+            if (!transactional) {
+                entityManager.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate listener dropping the results of the {@link QueryResultCache} which may be changed by entity writes,
+ * once their transaction is committed.
+ * <ul>
+ * <li>An insert drops the results over the whole table, and the results of the partitions of the new entity;</li>
+ * <li>an update also drops the results containing the entity, which may have left their partition;</li>
+ * <li>a delete only drops the results containing the entity.</li>
+ * </ul>
+ * Partitions are matched on the basic attributes of the entity, associations and collections are ignored.
+ * <p>
+ * The dependency keys of the writes are collected when they are flushed, and the results are dropped once per
+ * written entity class after the commit, whatever the number of rows the transaction wrote.
+ */
+public class QueryResultInvalidator implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient QueryResultCache queryResultCache;
+
+    private final transient Map<SharedSessionContractImplementor, TransactionWrites> transactions =
+        new ConcurrentHashMap<>();
+
+    public QueryResultInvalidator(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Register a listener on the session factory of an entity manager factory.
+     *
+     * @param entityManagerFactory the entity manager factory.
+     * @param queryResultCache the cache invalidated by the listener.
+     */
+    public static void register(EntityManagerFactory entityManagerFactory, QueryResultCache queryResultCache) {
+        QueryResultInvalidator invalidator = new QueryResultInvalidator(queryResultCache);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, invalidator);
+        registry.appendListeners(EventType.POST_UPDATE, invalidator);
+        registry.appendListeners(EventType.POST_DELETE, invalidator);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        Set<String> dependencies = writes(event).of(persister.getEntityName(), "insert");
+        addPartitionKeys(dependencies, persister, event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        Set<String> dependencies = writes(event).of(persister.getEntityName(), "update");
+        addPartitionKeys(dependencies, persister, event.getState());
+        dependencies.add(QueryResultCache.idKey(persister.getEntityName(), event.getId()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        Set<String> dependencies = writes(event).of(persister.getEntityName(), "delete");
+        dependencies.add(QueryResultCache.idKey(persister.getEntityName(), event.getId()));
+    }
+
+    /**
+     * The results are dropped by a process of the transaction, not by post-commit listeners.
+     */
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    /**
+     * Get the writes of the current transaction of a session, registered to be invalidated after its completion.
+     */
+    private TransactionWrites writes(AbstractEvent event) {
+        SharedSessionContractImplementor session = event.getSession();
+        TransactionWrites writes = transactions.get(session);
+        if (writes == null) {
+            writes = new TransactionWrites();
+            transactions.put(session, writes);
+            event.getSession().getActionQueue().registerProcess(writes);
+        }
+        return writes;
+    }
+
+    private static void addPartitionKeys(Set<String> keys, EntityPersister persister, Object[] state) {
+        String entityName = persister.getEntityName();
+        String[] propertyNames = persister.getPropertyNames();
+        Type[] propertyTypes = persister.getPropertyTypes();
+        keys.add(QueryResultCache.tableKey(entityName));
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (state[i] != null && !propertyTypes[i].isAssociationType() && !propertyTypes[i].isCollectionType()) {
+                keys.add(QueryResultCache.partitionKey(entityName, propertyNames[i], state[i]));
+            }
+        }
+    }
+
+    /**
+     * Dependency keys of the writes of a transaction, by entity name, dropped once the transaction is committed.
+     */
+    private final class TransactionWrites implements AfterTransactionCompletionProcess {
+
+        private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+
+        private final Map<String, String> causes = new LinkedHashMap<>();
+
+        Set<String> of(String entityName, String cause) {
+            // The kind of write is a metric tag, a mix of kinds is tagged as a plain write
+            causes.merge(entityName, cause, (previous, current) -> previous.equals(current) ? previous : "write");
+            return dependencies.computeIfAbsent(entityName, name -> new LinkedHashSet<>());
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            transactions.remove(session);
+            if (success) {
+                dependencies.forEach((entityName, keys) ->
+                    queryResultCache.invalidate(entityName, keys, causes.get(entityName)));
+            }
+        }
+    }
+}
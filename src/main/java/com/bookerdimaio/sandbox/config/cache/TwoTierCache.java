@@ -0,0 +1,179 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spring cache reading through a local tier (L1), on or off the heap, in front of a distributed Hazelcast cache (L2).
+ * <p>
+ * Writes go to L2 and drop the entry from L1. Every member listens to the changes of the Hazelcast map, see
+ * {@link Invalidator}, and drops the added, updated, removed or expired entries from its own L1. Entries evicted
+ * from L2 to bound its size are still valid, and are kept in L1: the Hazelcast map of a large cache can stay small
+ * while its local tiers hold most of the entries.
+ * <p>
+ * An invalidation may arrive while a read is copying an entry from L2 to L1: every invalidation bumps a counter,
+ * and a read which sees the counter change drops the entry it has just copied, so that L1 does not keep a stale
+ * value.
+ */
+public class TwoTierCache implements org.springframework.cache.Cache {
+
+    private final LocalCacheTier local;
+
+    private final org.springframework.cache.Cache distributed;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TwoTierCache(LocalCacheTier local, org.springframework.cache.Cache distributed) {
+        this.local = local;
+        this.distributed = distributed;
+    }
+
+    @Override
+    public String getName() {
+        return distributed.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return distributed.getNativeCache();
+    }
+
+    public LocalCacheTier getLocalTier() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) {
+            return value;
+        }
+        long invalidationsBeforeRead = invalidations.get();
+        value = distributed.get(key);
+        if (value != null) {
+            local.put(key, value);
+            if (invalidations.get() != invalidationsBeforeRead) {
+                local.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object result = value == null ? null : value.get();
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " +
+                result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        return distributed.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        distributed.put(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = distributed.putIfAbsent(key, value);
+        invalidate(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        distributed.evict(key);
+        invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        distributed.clear();
+        invalidateAll();
+    }
+
+    void invalidate(Object key) {
+        invalidations.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    void invalidateAll() {
+        invalidations.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    /**
+     * Listener of the Hazelcast map of a cache, invalidating the local tier when entries change on any member.
+     * <p>
+     * Writes made through this member have already invalidated its local tier, their events are ignored.
+     */
+    static class Invalidator implements EntryAddedListener<Object, Object>, EntryUpdatedListener<Object, Object>,
+        EntryRemovedListener<Object, Object>, EntryExpiredListener<Object, Object>, MapClearedListener,
+        MapEvictedListener {
+
+        private final TwoTierCache cache;
+
+        Invalidator(TwoTierCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<Object, Object> event) {
+            invalidateRemoteWrite(event);
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<Object, Object> event) {
+            invalidateRemoteWrite(event);
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<Object, Object> event) {
+            invalidateRemoteWrite(event);
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<Object, Object> event) {
+            cache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            cache.invalidateAll();
+        }
+
+        private void invalidateRemoteWrite(EntryEvent<Object, Object> event) {
+            if (!event.getMember().localMember()) {
+                cache.invalidate(event.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache manager adding a local Caffeine tier in front of the Hazelcast caches, see {@link TwoTierCache}.
+ * <p>
+ * The local tier of each cache is configured by cache name, settings left unset are inherited from the
+ * {@code default} configuration. Caches whose local tier is disabled are the plain Hazelcast caches.
+ * Local tiers are stored on the heap ({@link CaffeineCacheTier}) or in native memory ({@link OffHeapCacheTier}),
+ * and monitored as the caches of the {@code local} cache manager.
+ */
+public class TwoTierCacheManager implements CacheManager, DisposableBean {
+
+    static final String DEFAULT = "default";
+
+    private static final long DEFAULT_MAX_SIZE = 1000;
+
+    private static final DataSize DEFAULT_MAX_MEMORY = DataSize.ofMegabytes(64);
+
+    private static final long DEFAULT_TIME_TO_LIVE_SECONDS = 60;
+
+    private final HazelcastCacheManager distributed;
+
+    private final Map<String, ApplicationProperties.Cache.Local.LocalCache> configurations;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(HazelcastCacheManager distributed,
+                               Map<String, ApplicationProperties.Cache.Local.LocalCache> configurations,
+                               MeterRegistry meterRegistry) {
+        this.distributed = distributed;
+        this.configurations = configurations;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return distributed.getCacheNames();
+    }
+
+    @Override
+    public void destroy() {
+        caches.values().stream()
+            .filter(TwoTierCache.class::isInstance)
+            .forEach(cache -> ((TwoTierCache) cache).getLocalTier().close());
+    }
+
+    private Cache createCache(String name) {
+        Cache distributedCache = distributed.getCache(name);
+        ApplicationProperties.Cache.Local.LocalCache configuration = configurations.get(name);
+        ApplicationProperties.Cache.Local.LocalCache defaults = configurations.get(DEFAULT);
+        if (!resolve(configuration, defaults, ApplicationProperties.Cache.Local.LocalCache::getEnabled, true)) {
+            return distributedCache;
+        }
+        long timeToLiveSeconds = resolve(configuration, defaults,
+            ApplicationProperties.Cache.Local.LocalCache::getTimeToLiveSeconds, DEFAULT_TIME_TO_LIVE_SECONDS);
+        Tags tags = Tags.of("cache", name, "name", name, "cacheManager", "local");
+        LocalCacheTier localTier;
+        if (resolve(configuration, defaults, ApplicationProperties.Cache.Local.LocalCache::getStorage,
+            ApplicationProperties.Cache.Local.LocalCache.Storage.HEAP) ==
+            ApplicationProperties.Cache.Local.LocalCache.Storage.OFF_HEAP) {
+            OffHeapCacheTier offHeapTier = new OffHeapCacheTier(
+                ((SerializationServiceSupport) distributed.getHazelcastInstance()).getSerializationService(),
+                resolve(configuration, defaults, ApplicationProperties.Cache.Local.LocalCache::getMaxMemory,
+                    DEFAULT_MAX_MEMORY).toBytes(),
+                timeToLiveSeconds);
+            offHeapTier.bindTo(meterRegistry, tags);
+            localTier = offHeapTier;
+        } else {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(resolve(configuration, defaults,
+                    ApplicationProperties.Cache.Local.LocalCache::getMaxSize, DEFAULT_MAX_SIZE))
+                .recordStats();
+            if (timeToLiveSeconds > 0) {
+                builder.expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS);
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> localCache = builder.build();
+            new CaffeineCacheMetrics(localCache, name, tags).bindTo(meterRegistry);
+            localTier = new CaffeineCacheTier(localCache);
+        }
+        TwoTierCache cache = new TwoTierCache(localTier, distributedCache);
+        distributed.getHazelcastInstance().getMap(name).addEntryListener(new TwoTierCache.Invalidator(cache), false);
+        return cache;
+    }
+
+    private static <T> T resolve(ApplicationProperties.Cache.Local.LocalCache configuration,
+                                 ApplicationProperties.Cache.Local.LocalCache defaults,
+                                 Function<ApplicationProperties.Cache.Local.LocalCache, T> setting,
+                                 T fallback) {
+        if (configuration != null && setting.apply(configuration) != null) {
+            return setting.apply(configuration);
+        }
+        if (defaults != null && setting.apply(defaults) != null) {
+            return setting.apply(defaults);
+        }
+        return fallback;
+    }
+}
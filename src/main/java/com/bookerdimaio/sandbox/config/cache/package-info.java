@@ -0,0 +1,4 @@
+/**
+ * Hazelcast and Spring Cache support.
+ */
+package com.bookerdimaio.sandbox.config.cache;
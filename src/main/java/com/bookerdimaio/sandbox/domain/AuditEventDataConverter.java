@@ -0,0 +1,74 @@
+package com.bookerdimaio.sandbox.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts the data of a {@link PersistentAuditEvent} to the JSON object stored in the {@code event_data} column:
+ * a {@code jsonb} column on PostgreSQL, and a text column on other databases.
+ * <p>
+ * Events without data are stored as {@code null}.
+ */
+@Converter
+public class AuditEventDataConverter implements AttributeConverter<Map<String, String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectWriter WRITER = MAPPER.writerFor(new TypeReference<Map<String, String>>() { });
+
+    private static final ObjectReader READER = MAPPER.readerFor(new TypeReference<HashMap<String, String>>() { });
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> data) {
+        return toJson(data);
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String json) {
+        return fromJson(json);
+    }
+
+    /**
+     * Convert event data to its column value.
+     *
+     * @param data the event data.
+     * @return the JSON object, or {@code null} if there is no data.
+     */
+    public static String toJson(Map<String, String> data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try {
+            return WRITER.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not convert the audit event data to JSON", e);
+        }
+    }
+
+    /**
+     * Convert a column value to event data.
+     *
+     * @param json the JSON object, or {@code null}.
+     * @return the event data, empty if there is none.
+     */
+    public static Map<String, String> fromJson(String json) {
+        if (json == null) {
+            return new HashMap<>();
+        }
+        try {
+            return READER.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the audit event data", e);
+        }
+    }
+}
@@ -40,6 +40,14 @@ public class PersistentAuditEvent implements Serializable {
     @CollectionTable(name = "jhi_persistent_audit_evt_data", joinColumns=@JoinColumn(name="event_id"))
     private Map<String, String> data = new HashMap<>();
 
+    /**
+     * The data of the events written with the {@code COLUMN} data storage, which is stored in the event row.
+     * It is written by the {@code AsyncAuditEventRepository}, and read only here.
+     */
+    @Column(name = "event_data", insertable = false, updatable = false)
+    @Convert(converter = AuditEventDataConverter.class)
+    private Map<String, String> inlineData;
+
     public Long getId() {
         return id;
     }
@@ -80,6 +88,14 @@ public class PersistentAuditEvent implements Serializable {
         this.data = data;
     }
 
+    public Map<String, String> getInlineData() {
+        return inlineData;
+    }
+
+    public void setInlineData(Map<String, String> inlineData) {
+        this.inlineData = inlineData;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
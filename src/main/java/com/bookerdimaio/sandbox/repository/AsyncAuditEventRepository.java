@@ -0,0 +1,369 @@
+package com.bookerdimaio.sandbox.repository;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.config.audit.AuditEventConverter;
+import com.bookerdimaio.sandbox.config.cache.QueryResultCache;
+import com.bookerdimaio.sandbox.domain.AuditEventDataConverter;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.actuate.audit.AuditEventRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of Spring Boot's {@link AuditEventRepository} writing the events asynchronously, by batches.
+ * <p>
+ * Events are queued in a bounded buffer, and written by a background thread with JDBC batch inserts, one for the
+ * events and one for their data, in a single transaction. With the {@code COLUMN} data storage, the data is written
+ * as JSON with its event, by a single batch insert. A batch is written when it is full, or when the flush
+ * interval is over. When the buffer is full, callers wait for room up to the offer timeout, then their event is
+ * dropped: authentication bursts cannot exhaust the heap nor slow down the requests. Dropped events are counted by
+ * the {@code audit.events.dropped} meter.
+ * <p>
+ * Buffered events are written on shutdown, and only become visible to {@link #find(String, Instant, String)} once
+ * written. Event identifiers are allocated from the Hibernate sequence, by blocks of its increment.
+ */
+@Repository
+public class AsyncAuditEventRepository implements AuditEventRepository, InitializingBean, DisposableBean {
+
+    private static final String AUTHORIZATION_FAILURE = "AUTHORIZATION_FAILURE";
+
+    /**
+     * Should be the same as in Liquibase migration.
+     */
+    private static final int EVENT_DATA_COLUMN_MAX_LENGTH = 255;
+
+    private static final String SEQUENCE_NAME = "sequence_generator";
+
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String INSERT_EVENT_SQL = "insert into jhi_persistent_audit_event " +
+        "(event_id, principal, event_date, event_type) values (?, ?, ?, ?)";
+
+    private static final String INSERT_EVENT_WITH_DATA_SQL = "insert into jhi_persistent_audit_event " +
+        "(event_id, principal, event_date, event_type, event_data) values (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_EVENT_DATA_SQL = "insert into jhi_persistent_audit_evt_data " +
+        "(event_id, name, value) values (?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(AsyncAuditEventRepository.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final AuditEventConverter auditEventConverter;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DataFieldMaxValueIncrementer sequence;
+
+    private final boolean inlineData;
+
+    private final boolean jsonb;
+
+    private final ObjectProvider<QueryResultCache> queryResultCache;
+
+    private final BlockingQueue<PersistentAuditEvent> buffer;
+
+    private final int batchSize;
+
+    private final long flushIntervalInNanos;
+
+    private final long offerTimeoutInMillis;
+
+    private final long shutdownTimeoutInMillis;
+
+    private final Counter written;
+
+    private final Counter droppedBufferFull;
+
+    private final Counter droppedWriteFailed;
+
+    private final Counter droppedShutdown;
+
+    private volatile boolean closed;
+
+    private Thread writer;
+
+    private long nextId;
+
+    private long lastId;
+
+    public AsyncAuditEventRepository(PersistenceAuditEventRepository persistenceAuditEventRepository,
+                                     AuditEventConverter auditEventConverter, DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectProvider<QueryResultCache> queryResultCache,
+                                     ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.auditEventConverter = auditEventConverter;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        String databaseProductName = databaseProductName(dataSource);
+        this.sequence = sequence(dataSource, databaseProductName);
+        this.queryResultCache = queryResultCache;
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        this.inlineData = audit.getDataStorage() == ApplicationProperties.Audit.DataStorage.COLUMN;
+        this.jsonb = "PostgreSQL".equals(databaseProductName);
+        this.buffer = new ArrayBlockingQueue<>(audit.getBufferSize());
+        this.batchSize = audit.getBatchSize();
+        this.flushIntervalInNanos = TimeUnit.MILLISECONDS.toNanos(audit.getFlushIntervalInMillis());
+        this.offerTimeoutInMillis = audit.getOfferTimeoutInMillis();
+        this.shutdownTimeoutInMillis = TimeUnit.SECONDS.toMillis(audit.getShutdownTimeoutInSeconds());
+        this.written = Counter.builder("audit.events.written")
+            .description("The number of audit events written to the database")
+            .register(meterRegistry);
+        this.droppedBufferFull = dropped(meterRegistry, "buffer-full");
+        this.droppedWriteFailed = dropped(meterRegistry, "write-failed");
+        this.droppedShutdown = dropped(meterRegistry, "shutdown");
+        Gauge.builder("audit.events.pending", buffer, Collection::size)
+            .description("The number of audit events waiting to be written")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        writer = new Thread(this::writeBatches, "audit-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop the writer, then write the events still in the buffer. If the writer does not stop in time, even once
+     * interrupted, the buffered events are dropped rather than written concurrently with it.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        if (writer != null) {
+            writer.join(shutdownTimeoutInMillis);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(shutdownTimeoutInMillis);
+            }
+            if (writer.isAlive()) {
+                int dropped = buffer.drainTo(new ArrayList<>());
+                droppedShutdown.increment(dropped);
+                log.warn("The audit event writer did not stop, dropped {} audit events", dropped);
+                return;
+            }
+        }
+        List<PersistentAuditEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        // Events added while the buffer was drained
+        droppedShutdown.increment(buffer.drainTo(new ArrayList<>()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuditEvent> find(String principal, Instant after, String type) {
+        return auditEventConverter.convertToAuditEvent(persistenceAuditEventRepository.find(principal, after, type));
+    }
+
+    @Override
+    public void add(AuditEvent event) {
+        if (AUTHORIZATION_FAILURE.equals(event.getType())) {
+            return;
+        }
+        if (closed) {
+            droppedShutdown.increment();
+            return;
+        }
+        PersistentAuditEvent persistentAuditEvent = new PersistentAuditEvent();
+        persistentAuditEvent.setPrincipal(event.getPrincipal());
+        persistentAuditEvent.setAuditEventType(truncate(event.getType()));
+        persistentAuditEvent.setAuditEventDate(event.getTimestamp());
+        Map<String, String> eventData = auditEventConverter.convertDataToStrings(event.getData());
+        eventData.replaceAll((name, value) -> truncate(value));
+        persistentAuditEvent.setData(eventData);
+        try {
+            if (!buffer.offer(persistentAuditEvent, offerTimeoutInMillis, TimeUnit.MILLISECONDS)) {
+                droppedBufferFull.increment();
+                log.debug("Audit event buffer is full, dropped event: {}", persistentAuditEvent);
+            } else if (closed && buffer.remove(persistentAuditEvent)) {
+                // Closed while the event was added, it may be after the last drain of the buffer
+                droppedShutdown.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedBufferFull.increment();
+        }
+    }
+
+    private void writeBatches() {
+        List<PersistentAuditEvent> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                PersistentAuditEvent first = buffer.poll(TimeUnit.NANOSECONDS.toMillis(flushIntervalInNanos),
+                    TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalInNanos;
+                while (batch.size() < batchSize && !closed) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    PersistentAuditEvent next = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Write a batch of events in a single transaction, the events of a failed batch are dropped.
+     */
+    void write(List<PersistentAuditEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                insert(batch);
+                return null;
+            });
+            written.increment(batch.size());
+            queryResultCache.ifAvailable(cache -> cache.invalidateInserts(PersistentAuditEvent.class,
+                batch.stream().map(AsyncAuditEventRepository::attributes).collect(Collectors.toList())));
+        } catch (RuntimeException e) {
+            droppedWriteFailed.increment(batch.size());
+            log.error("Could not write {} audit events: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void insert(List<PersistentAuditEvent> batch) {
+        List<Object[]> data = new ArrayList<>();
+        for (PersistentAuditEvent event : batch) {
+            event.setId(nextId());
+            if (!inlineData) {
+                event.getData().forEach((name, value) -> data.add(new Object[]{event.getId(), name, value}));
+            }
+        }
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        String insertEventSql = inlineData ? INSERT_EVENT_WITH_DATA_SQL : INSERT_EVENT_SQL;
+        jdbcTemplate.batchUpdate(insertEventSql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PersistentAuditEvent event = batch.get(i);
+                ps.setLong(1, event.getId());
+                ps.setString(2, event.getPrincipal());
+                ps.setTimestamp(3, event.getAuditEventDate() == null ? null :
+                    Timestamp.from(event.getAuditEventDate()), utc);
+                ps.setString(4, event.getAuditEventType());
+                if (inlineData) {
+                    String json = AuditEventDataConverter.toJson(event.getData());
+                    if (jsonb) {
+                        // Sent untyped, for PostgreSQL to cast it to jsonb
+                        ps.setObject(5, json, Types.OTHER);
+                    } else {
+                        ps.setString(5, json);
+                    }
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+        if (!data.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EVENT_DATA_SQL, data);
+        }
+    }
+
+    /**
+     * Allocate an identifier the way the Hibernate pooled optimizer does: each sequence value is the highest of a
+     * block of identifiers.
+     */
+    private synchronized long nextId() {
+        if (nextId > lastId || lastId == 0) {
+            lastId = sequence.nextLongValue();
+            nextId = lastId - SEQUENCE_INCREMENT + 1;
+        }
+        return nextId++;
+    }
+
+    private static Map<String, Object> attributes(PersistentAuditEvent event) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("principal", event.getPrincipal());
+        attributes.put("auditEventDate", event.getAuditEventDate());
+        attributes.put("auditEventType", event.getAuditEventType());
+        return attributes;
+    }
+
+    private static String truncate(String value) {
+        if (value != null && value.length() > EVENT_DATA_COLUMN_MAX_LENGTH) {
+            return value.substring(0, EVENT_DATA_COLUMN_MAX_LENGTH);
+        }
+        return value;
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("audit.events.dropped")
+            .tag("reason", reason)
+            .description("The number of audit events which were not written")
+            .register(meterRegistry);
+    }
+
+    private static DataFieldMaxValueIncrementer sequence(DataSource dataSource, String databaseProductName) {
+        if ("PostgreSQL".equals(databaseProductName)) {
+            return new PostgresSequenceMaxValueIncrementer(dataSource, SEQUENCE_NAME);
+        }
+        if ("H2".equals(databaseProductName)) {
+            return new H2SequenceMaxValueIncrementer(dataSource, SEQUENCE_NAME);
+        }
+        throw new IllegalStateException("Batched audit event writes are not supported on " + databaseProductName);
+    }
+
+    private static String databaseProductName(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not read the database product name", e);
+        }
+    }
+}
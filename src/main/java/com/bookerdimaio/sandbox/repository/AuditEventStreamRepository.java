@@ -0,0 +1,180 @@
+package com.bookerdimaio.sandbox.repository;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.domain.AuditEventDataConverter;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Reads audit events one at a time, for result sets too large to be loaded in memory.
+ * <p>
+ * Events are read by pages in the order of the {@code idx_persistent_audit_event} index, principal then date, with
+ * the identifier breaking ties. Each page starts after the last event of the previous one (keyset pagination), so
+ * that reading a page costs the same whatever its position, and no transaction stays open for the whole read. The
+ * rows of a page, joined with the event data, are read with a forward-only cursor and handed over one event at a
+ * time. The data of both storages is read, the rows of the data table and the {@code event_data} column of the
+ * event, so that events written before a change of {@link ApplicationProperties.Audit.DataStorage} keep their data.
+ * <p>
+ * Events without a date are not read.
+ */
+@Repository
+public class AuditEventStreamRepository {
+
+    private static final String SELECT_PAGE_SQL = "select e.event_id, e.principal, e.event_date, e.event_type, " +
+        "e.event_data, d.name, d.value from (select event_id, principal, event_date, event_type, event_data " +
+        "from jhi_persistent_audit_event where event_date is not null%s " +
+        "order by principal, event_date, event_id limit ?) e " +
+        "left join jhi_persistent_audit_evt_data d on d.event_id = e.event_id " +
+        "order by e.principal, e.event_date, e.event_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int pageSize;
+
+    public AuditEventStreamRepository(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(applicationProperties.getAudit().getStreamFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.pageSize = applicationProperties.getAudit().getStreamPageSize();
+    }
+
+    /**
+     * Read the events matching the given criteria, ordered by principal, date and identifier.
+     *
+     * @param principal the principal of the events, or {@code null} for any principal.
+     * @param from the date from which the events happened, inclusive, or {@code null}.
+     * @param to the date until which the events happened, exclusive, or {@code null}.
+     * @param action called with each event, in order, with its data and inline data as loaded by JPA.
+     */
+    public void forEach(String principal, Instant from, Instant to, Consumer<PersistentAuditEvent> action) {
+        PageReader reader = new PageReader(action);
+        do {
+            reader.startPage();
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.query(pageQuery(principal, from, to, reader.last), reader);
+                return null;
+            });
+            reader.endPage();
+        } while (reader.eventsInPage == pageSize);
+    }
+
+    private PreparedStatementCreator pageQuery(String principal, Instant from, Instant to,
+                                               PersistentAuditEvent last) {
+        StringBuilder conditions = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        if (principal != null) {
+            conditions.append(" and principal = ?");
+            parameters.add(principal);
+        }
+        if (from != null) {
+            conditions.append(" and event_date >= ?");
+            parameters.add(from);
+        }
+        if (to != null) {
+            conditions.append(" and event_date < ?");
+            parameters.add(to);
+        }
+        if (last != null) {
+            conditions.append(" and (principal > ? or (principal = ? and (event_date > ? or " +
+                "(event_date = ? and event_id > ?))))");
+            parameters.add(last.getPrincipal());
+            parameters.add(last.getPrincipal());
+            parameters.add(last.getAuditEventDate());
+            parameters.add(last.getAuditEventDate());
+            parameters.add(last.getId());
+        }
+        parameters.add(pageSize);
+        String sql = String.format(SELECT_PAGE_SQL, conditions);
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            for (int i = 0; i < parameters.size(); i++) {
+                Object parameter = parameters.get(i);
+                if (parameter instanceof Instant) {
+                    statement.setTimestamp(i + 1, Timestamp.from((Instant) parameter), utc);
+                } else {
+                    statement.setObject(i + 1, parameter);
+                }
+            }
+            return statement;
+        };
+    }
+
+    /**
+     * Groups the rows of an event and its data, which are consecutive, into a {@link PersistentAuditEvent}.
+     */
+    private static class PageReader implements RowCallbackHandler {
+
+        private final Consumer<PersistentAuditEvent> action;
+
+        private final Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+        private PersistentAuditEvent current;
+
+        private PersistentAuditEvent last;
+
+        private int eventsInPage;
+
+        PageReader(Consumer<PersistentAuditEvent> action) {
+            this.action = action;
+        }
+
+        void startPage() {
+            eventsInPage = 0;
+        }
+
+        void endPage() {
+            emitCurrent();
+        }
+
+        private void emitCurrent() {
+            if (current != null) {
+                action.accept(current);
+                last = current;
+                current = null;
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (current == null || current.getId() != id) {
+                emitCurrent();
+                current = new PersistentAuditEvent();
+                current.setId(id);
+                current.setPrincipal(rs.getString(2));
+                current.setAuditEventDate(rs.getTimestamp(3, utc).toInstant());
+                current.setAuditEventType(rs.getString(4));
+                current.setInlineData(AuditEventDataConverter.fromJson(rs.getString(5)));
+                eventsInPage++;
+            }
+            String name = rs.getString(6);
+            if (name != null) {
+                current.getData().put(name, rs.getString(7));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bookerdimaio.sandbox.repository;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.criteria.Predicate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the {@link PersistentAuditEvent} entity.
+ */
+@Repository
+public interface PersistenceAuditEventRepository extends JpaRepository<PersistentAuditEvent, Long>,
+    JpaSpecificationExecutor<PersistentAuditEvent> {
+
+    @Override
+    @EntityGraph(attributePaths = "data")
+    List<PersistentAuditEvent> findAll(Specification<PersistentAuditEvent> specification, Sort sort);
+
+    /**
+     * Find the events matching the given criteria, with their data, in chronological order.
+     *
+     * @param principal the principal of the events, or {@code null} for any principal.
+     * @param after the date after which the events happened, or {@code null} for any date.
+     * @param type the type of the events, or {@code null} for any type.
+     * @return the events.
+     */
+    default List<PersistentAuditEvent> find(String principal, Instant after, String type) {
+        return findAll((root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (principal != null) {
+                predicates.add(builder.equal(root.get("principal"), principal));
+            }
+            if (after != null) {
+                predicates.add(builder.greaterThan(root.get("auditEventDate"), after));
+            }
+            if (type != null) {
+                predicates.add(builder.equal(root.get("auditEventType"), type));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        }, Sort.by("auditEventDate", "id"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookerdimaio.sandbox.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact representation of a set of authorities as a bitmask over the authorities known by the application.
+ * <p>
+ * Authorities which are not registered here have no bit, and must be checked by comparing their names.
+ */
+public final class AuthorityMask {
+
+    /**
+     * Known authorities, the position of each authority is its bit number. Only append to this list.
+     */
+    private static final String[] KNOWN_AUTHORITIES = {
+        AuthoritiesConstants.ADMIN,
+        AuthoritiesConstants.USER,
+        AuthoritiesConstants.ANONYMOUS
+    };
+
+    private static final Map<String, Integer> BITS;
+
+    static {
+        Map<String, Integer> bits = new HashMap<>();
+        for (int i = 0; i < KNOWN_AUTHORITIES.length; i++) {
+            bits.put(KNOWN_AUTHORITIES[i], i);
+        }
+        BITS = Collections.unmodifiableMap(bits);
+    }
+
+    private AuthorityMask() {
+    }
+
+    /**
+     * Get the bit of an authority.
+     *
+     * @param authority the authority name.
+     * @return the bit of the authority, or {@code 0} if the authority is not known.
+     */
+    public static long bitOf(String authority) {
+        Integer bit = BITS.get(authority);
+        return bit == null ? 0L : 1L << bit;
+    }
+
+    /**
+     * Compute the mask of a set of authorities, ignoring unknown authorities.
+     *
+     * @param authorities the authorities.
+     * @return the mask.
+     */
+    public static long of(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0L;
+        for (GrantedAuthority authority : authorities) {
+            mask |= bitOf(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    /**
+     * An {@link org.springframework.security.core.Authentication} carrying the mask of its authorities.
+     */
+    public interface Holder {
+
+        long getAuthorityMask();
+    }
+}
@@ -1,5 +1,7 @@
 package com.bookerdimaio.sandbox.security;
 
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -51,11 +53,8 @@ public final class SecurityUtils {
      * @return true if the user is authenticated, false otherwise.
      */
     public static boolean isAuthenticated() {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        return Optional.ofNullable(securityContext.getAuthentication())
-            .map(authentication -> authentication.getAuthorities().stream()
-                .noneMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(AuthoritiesConstants.ANONYMOUS)))
-            .orElse(false);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && !hasAuthority(authentication, AuthoritiesConstants.ANONYMOUS);
     }
 
     /**
@@ -67,10 +66,26 @@ public final class SecurityUtils {
      * @return true if the current user has the authority, false otherwise.
      */
     public static boolean isCurrentUserInRole(String authority) {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        return Optional.ofNullable(securityContext.getAuthentication())
-            .map(authentication -> authentication.getAuthorities().stream()
-                .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(authority)))
-            .orElse(false);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && hasAuthority(authentication, authority);
+    }
+
+    /**
+     * Check an authority with a bit test when the authentication carries an {@link AuthorityMask} and the authority
+     * is known, and by comparing the authority names otherwise.
+     */
+    private static boolean hasAuthority(Authentication authentication, String authority) {
+        if (authentication instanceof AuthorityMask.Holder) {
+            long bit = AuthorityMask.bitOf(authority);
+            if (bit != 0L) {
+                return (((AuthorityMask.Holder) authentication).getAuthorityMask() & bit) != 0L;
+            }
+        }
+        for (GrantedAuthority grantedAuthority : authentication.getAuthorities()) {
+            if (grantedAuthority.getAuthority().equals(authority)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
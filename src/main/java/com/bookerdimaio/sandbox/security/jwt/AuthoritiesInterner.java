@@ -0,0 +1,65 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry sharing one immutable authority list per distinct {@code auth} claim.
+ * <p>
+ * Tokens only carry a handful of role combinations, so after warm-up building the authorities of a token
+ * allocates nothing. The registry is bounded: once it holds {@code maxSize} combinations, unknown claims are
+ * converted without being registered.
+ */
+public class AuthoritiesInterner {
+
+    private final ConcurrentMap<String, List<GrantedAuthority>> authorities = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    public AuthoritiesInterner(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the authorities of a comma-separated {@code auth} claim.
+     *
+     * @param claim the claim value.
+     * @return the shared, unmodifiable list of authorities.
+     */
+    public List<GrantedAuthority> intern(String claim) {
+        List<GrantedAuthority> interned = authorities.get(claim);
+        if (interned != null) {
+            return interned;
+        }
+        List<GrantedAuthority> converted = convert(claim);
+        if (authorities.size() >= maxSize) {
+            return converted;
+        }
+        interned = authorities.putIfAbsent(claim, converted);
+        return interned != null ? interned : converted;
+    }
+
+    /**
+     * Get the number of registered authority combinations.
+     *
+     * @return the size of the registry.
+     */
+    public int size() {
+        return authorities.size();
+    }
+
+    private static List<GrantedAuthority> convert(String claim) {
+        String[] names = claim.split(",");
+        GrantedAuthority[] converted = new GrantedAuthority[names.length];
+        for (int i = 0; i < names.length; i++) {
+            converted[i] = new SimpleGrantedAuthority(names[i]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(converted));
+    }
+}
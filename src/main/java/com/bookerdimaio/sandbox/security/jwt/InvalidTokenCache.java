@@ -0,0 +1,59 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of the JWTs recently rejected by {@link TokenProvider}, with the reason of their rejection.
+ * <p>
+ * A client retrying with the same expired or forged token is turned away without verifying the signature again.
+ * Entries are keyed on the SHA-256 digest of the token, see {@link TokenAuthenticationCache#digest(String)}, and
+ * expire after a fixed time to live.
+ */
+public class InvalidTokenCache {
+
+    static final String CACHE_NAME = "jwt-invalid-token";
+
+    private final Cache<ByteBuffer, TokenValidationResult.Failure> cache;
+
+    public InvalidTokenCache(long maximumSize, long timeToLiveInSeconds, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLiveInSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "name", CACHE_NAME, "cacheManager", "tokenProvider");
+    }
+
+    /**
+     * Get the reason why a token was recently rejected.
+     *
+     * @param digest the digest of the token.
+     * @return the failure, or {@code null} if the token was not rejected recently.
+     */
+    public TokenValidationResult.Failure get(ByteBuffer digest) {
+        return cache.getIfPresent(digest);
+    }
+
+    /**
+     * Remember that a token was rejected.
+     *
+     * @param digest the digest of the token.
+     * @param failure the reason of the rejection.
+     */
+    public void put(ByteBuffer digest, TokenValidationResult.Failure failure) {
+        cache.put(digest, failure);
+    }
+
+    /**
+     * Forget every rejected token, for instance when the verification keys change.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
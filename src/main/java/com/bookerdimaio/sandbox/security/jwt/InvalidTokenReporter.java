@@ -0,0 +1,92 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts and logs the JWTs rejected by {@link TokenProvider}.
+ * <p>
+ * Every rejection increments the {@code security.authentication.invalid-tokens} meter, tagged with its
+ * {@link TokenValidationResult.Failure cause}. Logging is rate-limited: at most one INFO line per cause and per
+ * interval, reporting how many rejections were not logged since the previous line, so that a retry storm does
+ * not flood the logs.
+ */
+public class InvalidTokenReporter {
+
+    private final Logger log = LoggerFactory.getLogger(InvalidTokenReporter.class);
+
+    private final Map<TokenValidationResult.Failure, Report> reports = new EnumMap<>(TokenValidationResult.Failure.class);
+
+    private final long logIntervalInNanos;
+
+    public InvalidTokenReporter(long logIntervalInSeconds, MeterRegistry meterRegistry) {
+        this.logIntervalInNanos = TimeUnit.SECONDS.toNanos(logIntervalInSeconds);
+        for (TokenValidationResult.Failure failure : TokenValidationResult.Failure.values()) {
+            reports.put(failure, new Report(Counter.builder("security.authentication.invalid-tokens")
+                .description("Indicates validation errors of JWT tokens")
+                .tag("cause", failure.name().toLowerCase())
+                .register(meterRegistry)));
+        }
+    }
+
+    /**
+     * Report a rejected token.
+     *
+     * @param failure the reason of the rejection.
+     * @param cause the exception raised by the parser, or {@code null} if the token was rejected from the cache.
+     */
+    public void report(TokenValidationResult.Failure failure, Exception cause) {
+        Report report = reports.get(failure);
+        report.counter.increment();
+        long now = System.nanoTime();
+        long nextLog = report.nextLog.get();
+        if (now - nextLog >= 0 && report.nextLog.compareAndSet(nextLog, now + logIntervalInNanos)) {
+            long suppressed = report.suppressed.getAndSet(0);
+            if (suppressed == 0) {
+                log.info(message(failure));
+            } else {
+                log.info("{} ({} more since the previous report)", message(failure), suppressed);
+            }
+        } else {
+            report.suppressed.incrementAndGet();
+        }
+        if (cause != null && log.isTraceEnabled()) {
+            log.trace("{} trace: {}", message(failure), cause);
+        }
+    }
+
+    private static String message(TokenValidationResult.Failure failure) {
+        switch (failure) {
+            case INVALID_SIGNATURE:
+                return "Invalid JWT signature.";
+            case MALFORMED:
+                return "Malformed JWT token.";
+            case EXPIRED:
+                return "Expired JWT token.";
+            case UNSUPPORTED:
+                return "Unsupported JWT token.";
+            default:
+                return "JWT token compact of handler are invalid.";
+        }
+    }
+
+    private static final class Report {
+
+        private final Counter counter;
+
+        private final AtomicLong nextLog = new AtomicLong(System.nanoTime());
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Report(Counter counter) {
+            this.counter = counter;
+        }
+    }
+}
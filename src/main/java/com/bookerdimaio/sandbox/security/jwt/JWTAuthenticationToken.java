@@ -0,0 +1,57 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.bookerdimaio.sandbox.security.AuthorityMask;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Authentication built from a verified JWT.
+ * <p>
+ * Unlike its parent class, it does not copy its authorities: they are the immutable collection shared by every
+ * token carrying the same {@code auth} claim, see {@link AuthoritiesInterner}. It also carries their
+ * {@link AuthorityMask}, so that role checks on known authorities are a bit test.
+ */
+public class JWTAuthenticationToken extends UsernamePasswordAuthenticationToken implements AuthorityMask.Holder {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Collection<GrantedAuthority> authorities;
+
+    private final long authorityMask;
+
+    public JWTAuthenticationToken(Object principal, String token, Collection<GrantedAuthority> authorities) {
+        super(principal, token, null);
+        this.authorities = authorities;
+        this.authorityMask = AuthorityMask.of(authorities);
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public long getAuthorityMask() {
+        return authorityMask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JWTAuthenticationToken) || !super.equals(o)) {
+            return false;
+        }
+        return Objects.equals(authorities, ((JWTAuthenticationToken) o).authorities);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
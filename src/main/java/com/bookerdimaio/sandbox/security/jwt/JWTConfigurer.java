@@ -1,5 +1,6 @@
 package com.bookerdimaio.sandbox.security.jwt;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
@@ -9,13 +10,16 @@ public class JWTConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilt
 
     private TokenProvider tokenProvider;
 
-    public JWTConfigurer(TokenProvider tokenProvider) {
+    private MeterRegistry meterRegistry;
+
+    public JWTConfigurer(TokenProvider tokenProvider, MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public void configure(HttpSecurity http) throws Exception {
-        JWTFilter customFilter = new JWTFilter(tokenProvider);
+        JWTFilter customFilter = new JWTFilter(tokenProvider, meterRegistry);
         http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
     }
 }
@@ -1,8 +1,8 @@
 package com.bookerdimaio.sandbox.security.jwt;
 
-import org.springframework.security.core.Authentication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
 import javax.servlet.FilterChain;
@@ -11,19 +11,49 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Filters incoming requests and installs a Spring Security principal if a header corresponding to a valid user is
  * found.
+ * <p>
+ * The {@code Authorization} header is scanned in place: headers using another scheme, or whose token is not made
+ * of three base64url segments, are rejected before any string is allocated or the token parsed, and counted in the
+ * {@code security.authentication.rejected-headers} meter, tagged with the {@link Rejection} reason.
  */
 public class JWTFilter extends GenericFilterBean {
 
     public static final String AUTHORIZATION_HEADER = "Authorization";
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Reasons for rejecting an {@code Authorization} header before parsing its token.
+     */
+    public enum Rejection {
+        /** The header uses another authentication scheme. */
+        NOT_BEARER,
+        /** The header has no token after the {@code Bearer} scheme. */
+        EMPTY,
+        /** The token contains characters outside the base64url alphabet. */
+        ILLEGAL_CHARACTER,
+        /** The token is not made of three non-empty header and payload segments and a signature segment. */
+        MALFORMED
+    }
+
     private TokenProvider tokenProvider;
 
-    public JWTFilter(TokenProvider tokenProvider) {
+    private final Map<Rejection, Counter> rejectionCounters = new EnumMap<>(Rejection.class);
+
+    public JWTFilter(TokenProvider tokenProvider, MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
+        for (Rejection rejection : Rejection.values()) {
+            rejectionCounters.put(rejection, Counter.builder("security.authentication.rejected-headers")
+                .description("Authorization headers rejected before parsing their token")
+                .tag("reason", rejection.name().toLowerCase())
+                .register(meterRegistry));
+        }
     }
 
     @Override
@@ -31,18 +61,59 @@ public class JWTFilter extends GenericFilterBean {
         throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
         String jwt = resolveToken(httpServletRequest);
-        if (StringUtils.hasText(jwt) && this.tokenProvider.validateToken(jwt)) {
-            Authentication authentication = this.tokenProvider.getAuthentication(jwt);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (jwt != null) {
+            TokenValidationResult result = this.tokenProvider.resolveAuthentication(jwt);
+            if (result.isValid()) {
+                SecurityContextHolder.getContext().setAuthentication(result.getAuthentication());
+            }
         }
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
-    private String resolveToken(HttpServletRequest request){
+    private String resolveToken(HttpServletRequest request) {
         String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+        if (bearerToken == null) {
+            return null;
+        }
+        Rejection rejection = check(bearerToken);
+        if (rejection != null) {
+            rejectionCounters.get(rejection).increment();
+            return null;
         }
-        return null;
+        return bearerToken.substring(BEARER_PREFIX.length());
+    }
+
+    /**
+     * Check the shape of an {@code Authorization} header without allocating.
+     *
+     * @param header the header value.
+     * @return the reason for rejecting the header, or {@code null} if it carries a well-formed bearer token.
+     */
+    static Rejection check(String header) {
+        if (!header.startsWith(BEARER_PREFIX)) {
+            return Rejection.NOT_BEARER;
+        }
+        int length = header.length();
+        if (length == BEARER_PREFIX.length()) {
+            return Rejection.EMPTY;
+        }
+        int dots = 0;
+        int segmentStart = BEARER_PREFIX.length();
+        for (int i = BEARER_PREFIX.length(); i < length; i++) {
+            char c = header.charAt(i);
+            if (c == '.') {
+                if (i == segmentStart || ++dots > 2) {
+                    return Rejection.MALFORMED;
+                }
+                segmentStart = i + 1;
+            } else if (!isBase64UrlCharacter(c)) {
+                return Rejection.ILLEGAL_CHARACTER;
+            }
+        }
+        return dots == 2 ? null : Rejection.MALFORMED;
+    }
+
+    private static boolean isBase64UrlCharacter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
     }
 }
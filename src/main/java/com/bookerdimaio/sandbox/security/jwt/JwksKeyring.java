@@ -0,0 +1,204 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Public keys used to verify JWTs, indexed by key ID ({@code kid}) and loaded from a local JWKS file.
+ * <p>
+ * RSA and EC ({@code P-256}, {@code P-384}, {@code P-521}) keys are supported. The file is checked for changes at
+ * most once per reload interval, and reloaded when it was modified, so keys can be rotated without a restart.
+ * If a reload fails, the previous keys are kept.
+ */
+public class JwksKeyring {
+
+    private final Logger log = LoggerFactory.getLogger(JwksKeyring.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Map<String, String> EC_CURVES;
+
+    static {
+        Map<String, String> curves = new HashMap<>();
+        curves.put("P-256", "secp256r1");
+        curves.put("P-384", "secp384r1");
+        curves.put("P-521", "secp521r1");
+        EC_CURVES = Collections.unmodifiableMap(curves);
+    }
+
+    private final Path location;
+
+    private final long reloadIntervalInNanos;
+
+    private final AtomicLong nextCheck = new AtomicLong();
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile Map<String, VerificationKey> keys = Collections.emptyMap();
+
+    private volatile long lastModified;
+
+    public JwksKeyring(Path location, long reloadIntervalInSeconds) {
+        this.location = location;
+        this.reloadIntervalInNanos = TimeUnit.SECONDS.toNanos(reloadIntervalInSeconds);
+    }
+
+    /**
+     * Load the keys, failing if the JWKS file cannot be read.
+     *
+     * @throws IOException if the file cannot be read or contains no usable key.
+     */
+    public void load() throws IOException {
+        long modified = Files.getLastModifiedTime(location).toMillis();
+        Map<String, VerificationKey> loaded = parse(Files.readAllBytes(location));
+        if (loaded.isEmpty()) {
+            throw new IOException("No verification key found in " + location);
+        }
+        this.keys = loaded;
+        this.lastModified = modified;
+        this.nextCheck.set(System.nanoTime() + reloadIntervalInNanos);
+        log.debug("Loaded JWT verification keys {} from {}", loaded.keySet(), location);
+        changeListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Reload the keys if the reload interval has elapsed and the JWKS file was modified.
+     * <p>
+     * Only one caller performs the check, concurrent callers return immediately.
+     */
+    public void reloadIfDue() {
+        long check = nextCheck.get();
+        if (System.nanoTime() - check < 0 || !nextCheck.compareAndSet(check, System.nanoTime() + reloadIntervalInNanos)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(location).toMillis() != lastModified) {
+                load();
+                log.info("Reloaded JWT verification keys from {}", location);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not reload JWT verification keys from {}, keeping the previous keys: {}", location,
+                e.getMessage());
+        }
+    }
+
+    /**
+     * Get a verification key.
+     *
+     * @param kid the key ID.
+     * @return the key, or {@code null} if there is no key with this ID.
+     */
+    public VerificationKey getKey(String kid) {
+        return kid == null ? null : keys.get(kid);
+    }
+
+    /**
+     * Register a listener called every time the keys are (re)loaded.
+     *
+     * @param listener the listener.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    private Map<String, VerificationKey> parse(byte[] content) throws IOException {
+        Map<String, VerificationKey> parsed = new HashMap<>();
+        for (JsonNode jwk : OBJECT_MAPPER.readTree(content).path("keys")) {
+            String kid = jwk.path("kid").asText(null);
+            if (kid == null || "enc".equals(jwk.path("use").asText(null))) {
+                continue;
+            }
+            try {
+                PublicKey publicKey = toPublicKey(jwk);
+                if (publicKey != null) {
+                    parsed.put(kid, new VerificationKey(publicKey, jwk.path("alg").asText(null)));
+                } else {
+                    log.warn("Ignoring JWT verification key {} of unsupported type {}", kid, jwk.path("kty").asText());
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Ignoring invalid JWT verification key {}: {}", kid, e.getMessage());
+            }
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+
+    private static PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        switch (jwk.path("kty").asText()) {
+            case "RSA":
+                return KeyFactory.getInstance("RSA")
+                    .generatePublic(new RSAPublicKeySpec(toBigInteger(jwk, "n"), toBigInteger(jwk, "e")));
+            case "EC":
+                String curve = EC_CURVES.get(jwk.path("crv").asText());
+                if (curve == null) {
+                    throw new IllegalArgumentException("unsupported curve " + jwk.path("crv").asText());
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve));
+                ECPoint point = new ECPoint(toBigInteger(jwk, "x"), toBigInteger(jwk, "y"));
+                return KeyFactory.getInstance("EC")
+                    .generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+            default:
+                return null;
+        }
+    }
+
+    private static BigInteger toBigInteger(JsonNode jwk, String member) {
+        String value = jwk.path(member).asText(null);
+        if (value == null) {
+            throw new IllegalArgumentException("missing member " + member);
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+
+    /**
+     * A public key, with the algorithm it is restricted to, if any.
+     */
+    public static final class VerificationKey {
+
+        private final PublicKey publicKey;
+
+        private final String algorithm;
+
+        VerificationKey(PublicKey publicKey, String algorithm) {
+            this.publicKey = publicKey;
+            this.algorithm = algorithm;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        /**
+         * Get the JWS algorithm of the key.
+         *
+         * @return the algorithm, or {@code null} if the key does not restrict it.
+         */
+        public String getAlgorithm() {
+            return algorithm;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.security.Key;
+
+/**
+ * Resolves the public key verifying a JWT from the {@code kid} header of the token.
+ */
+class JwksSigningKeyResolver extends SigningKeyResolverAdapter {
+
+    private final JwksKeyring keyring;
+
+    JwksSigningKeyResolver(JwksKeyring keyring) {
+        this.keyring = keyring;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        return resolveSigningKey(header);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, String plaintext) {
+        return resolveSigningKey(header);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Key resolveSigningKey(JwsHeader header) {
+        JwksKeyring.VerificationKey key = keyring.getKey(header.getKeyId());
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key ID: " + header.getKeyId());
+        }
+        if (key.getAlgorithm() != null && !key.getAlgorithm().equals(header.getAlgorithm())) {
+            throw new SignatureException("JWT algorithm " + header.getAlgorithm() + " is not allowed for key ID " +
+                header.getKeyId());
+        }
+        return key.getPublicKey();
+    }
+}
@@ -0,0 +1,154 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.Authentication;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of the {@link Authentication} built from an already verified JWT.
+ * <p>
+ * Entries are keyed on the SHA-256 digest of the token and expire together with the token's {@code exp} claim,
+ * so a cached authentication never outlives the token it was built from.
+ */
+public class TokenAuthenticationCache {
+
+    static final String CACHE_NAME = "jwt-authentication";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Cache<ByteBuffer, CachedAuthentication> cache;
+
+    public TokenAuthenticationCache(long maximumSize, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new TokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "name", CACHE_NAME, "cacheManager", "tokenProvider");
+    }
+
+    /**
+     * Get the cached authentication of a token.
+     *
+     * @param token the raw JWT.
+     * @return the cached authentication, or {@code null} if the token is unknown or expired.
+     */
+    public Authentication get(String token) {
+        if (token == null) {
+            return null;
+        }
+        return get(digest(token), token);
+    }
+
+    /**
+     * Get the cached authentication of a token whose digest is already known.
+     *
+     * @param digest the digest of the token, see {@link #digest(String)}.
+     * @param token the raw JWT.
+     * @return the cached authentication, or {@code null} if the token is unknown or expired.
+     */
+    public Authentication get(ByteBuffer digest, String token) {
+        CachedAuthentication cached = cache.getIfPresent(digest);
+        if (cached == null || !token.equals(cached.authentication.getCredentials())) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return cached.authentication;
+    }
+
+    /**
+     * Cache the authentication of a verified token until the token expires.
+     * <p>
+     * Tokens without an expiration are not cached, as their lifetime cannot be bounded.
+     *
+     * @param token the raw JWT, which must be the credentials of the authentication.
+     * @param authentication the authentication built from the token.
+     * @param expiration the token's expiration.
+     */
+    public void put(String token, Authentication authentication, Date expiration) {
+        put(digest(token), authentication, expiration);
+    }
+
+    /**
+     * Cache the authentication of a verified token whose digest is already known.
+     *
+     * @param digest the digest of the token, see {@link #digest(String)}.
+     * @param authentication the authentication built from the token.
+     * @param expiration the token's expiration.
+     */
+    public void put(ByteBuffer digest, Authentication authentication, Date expiration) {
+        if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(digest, new CachedAuthentication(authentication, expiration.getTime()));
+    }
+
+    /**
+     * Remove every cached authentication.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Compute the SHA-256 digest of a token, used as cache key.
+     *
+     * @param token the raw JWT.
+     * @return the digest.
+     */
+    public static ByteBuffer digest(String token) {
+        MessageDigest messageDigest = SHA_256.get();
+        messageDigest.reset();
+        return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final long expiresAt;
+
+        private CachedAuthentication(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<ByteBuffer, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, CachedAuthentication value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, CachedAuthentication value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, CachedAuthentication value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package com.bookerdimaio.sandbox.security.jwt;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.Key;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -28,31 +30,89 @@ public class TokenProvider implements InitializingBean {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final int MAX_INTERNED_AUTHORITIES = 1024;
+
     private Key key;
 
+    private JwtParser jwtParser;
+
+    private JwksKeyring keyring;
+
     private long tokenValidityInMilliseconds;
 
     private long tokenValidityInMillisecondsForRememberMe;
 
     private final JHipsterProperties jHipsterProperties;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties.Security.Jwks jwksProperties;
+
+    /**
+     * The cache of the verified tokens, {@code null} when it is disabled.
+     */
+    private final TokenAuthenticationCache authenticationCache;
+
+    /**
+     * The cache of the rejected tokens, {@code null} when it is disabled.
+     */
+    private final InvalidTokenCache invalidTokenCache;
+
+    /**
+     * Whether tokens are digested, which only the caches need.
+     */
+    private final boolean digestTokens;
+
+    private final InvalidTokenReporter invalidTokenReporter;
+
+    private final AuthoritiesInterner authoritiesInterner = new AuthoritiesInterner(MAX_INTERNED_AUTHORITIES);
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                         MeterRegistry meterRegistry) {
         this.jHipsterProperties = jHipsterProperties;
+        this.jwksProperties = applicationProperties.getSecurity().getJwks();
+        ApplicationProperties.Security.AuthenticationCache authenticationCacheProperties =
+            applicationProperties.getSecurity().getAuthenticationCache();
+        this.authenticationCache = authenticationCacheProperties.isEnabled() ?
+            new TokenAuthenticationCache(authenticationCacheProperties.getMaxSize(), meterRegistry) : null;
+        ApplicationProperties.Security.InvalidTokenCache invalidTokenCacheProperties =
+            applicationProperties.getSecurity().getInvalidTokenCache();
+        this.invalidTokenCache = invalidTokenCacheProperties.isEnabled() ? new InvalidTokenCache(
+            invalidTokenCacheProperties.getMaxSize(), invalidTokenCacheProperties.getTimeToLiveInSeconds(),
+            meterRegistry) : null;
+        this.digestTokens = authenticationCache != null || invalidTokenCache != null;
+        this.invalidTokenReporter = new InvalidTokenReporter(
+            applicationProperties.getSecurity().getInvalidTokenLogIntervalInSeconds(), meterRegistry);
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        byte[] keyBytes;
-        String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
-        if (!StringUtils.isEmpty(secret)) {
-            log.warn("Warning: the JWT key used is not Base64-encoded. " +
-                "We recommend using the `jhipster.security.authentication.jwt.base64-secret` key for optimum security.");
-            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        // The parser is fully configured here and never mutated afterwards, so it is shared by all request threads
+        if (jwksProperties.isEnabled()) {
+            log.debug("Verifying JWTs with the public keys of {}", jwksProperties.getLocation());
+            this.keyring = new JwksKeyring(Paths.get(jwksProperties.getLocation()),
+                jwksProperties.getReloadIntervalInSeconds());
+            if (authenticationCache != null) {
+                this.keyring.addChangeListener(authenticationCache::invalidateAll);
+            }
+            if (invalidTokenCache != null) {
+                // A token rejected for an unknown key may be valid once that key is published
+                this.keyring.addChangeListener(invalidTokenCache::invalidateAll);
+            }
+            this.keyring.load();
+            this.jwtParser = Jwts.parser().setSigningKeyResolver(new JwksSigningKeyResolver(keyring));
         } else {
-            log.debug("Using a Base64-encoded JWT secret key");
-            keyBytes = Decoders.BASE64.decode(jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret());
+            byte[] keyBytes;
+            String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
+            if (!StringUtils.isEmpty(secret)) {
+                log.warn("Warning: the JWT key used is not Base64-encoded. " +
+                    "We recommend using the `jhipster.security.authentication.jwt.base64-secret` key for optimum security.");
+                keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            } else {
+                log.debug("Using a Base64-encoded JWT secret key");
+                keyBytes = Decoders.BASE64.decode(jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret());
+            }
+            this.key = Keys.hmacShaKeyFor(keyBytes);
+            this.jwtParser = Jwts.parser().setSigningKey(key);
         }
-        this.key = Keys.hmacShaKeyFor(keyBytes);
         this.tokenValidityInMilliseconds =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
@@ -61,6 +121,9 @@ public class TokenProvider implements InitializingBean {
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
+        if (key == null) {
+            throw new IllegalStateException("JWTs cannot be issued when they are verified with public keys");
+        }
         String authorities = authentication.getAuthorities().stream()
             .map(GrantedAuthority::getAuthority)
             .collect(Collectors.joining(","));
@@ -81,39 +144,107 @@ public class TokenProvider implements InitializingBean {
             .compact();
     }
 
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-            .setSigningKey(key)
-            .parseClaimsJws(token)
-            .getBody();
-
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    /**
+     * Prepare a template issuing tokens with the given authorities, for callers minting many tokens.
+     * <p>
+     * Tokens issued by the template carry the same claims as {@link #createToken(Authentication, boolean)}.
+     *
+     * @param authorities the authorities of every token issued by the template.
+     * @param rememberMe whether the tokens have the "remember me" validity.
+     * @return the template.
+     */
+    public TokenTemplate prepareTemplate(Collection<? extends GrantedAuthority> authorities, boolean rememberMe) {
+        if (key == null) {
+            throw new IllegalStateException("JWTs cannot be issued when they are verified with public keys");
+        }
+        String authoritiesClaim = authorities.stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.joining(","));
+        return new TokenTemplate(key, AUTHORITIES_KEY, authoritiesClaim,
+            rememberMe ? this.tokenValidityInMillisecondsForRememberMe : this.tokenValidityInMilliseconds);
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Verify a token and build its {@link Authentication}, parsing the token only once.
+     * <p>
+     * Tokens rejected recently are rejected again from the {@link InvalidTokenCache}, without being parsed.
+     *
+     * @param token the raw JWT.
+     * @return the authentication of the token, or the reason why it was rejected.
+     */
+    public TokenValidationResult resolveAuthentication(String token) {
+        if (!StringUtils.hasLength(token)) {
+            return reject(null, TokenValidationResult.Failure.INVALID, null);
+        }
+        reloadKeyringIfDue();
+        ByteBuffer digest = digestTokens ? TokenAuthenticationCache.digest(token) : null;
+        Authentication cached = getCachedAuthentication(digest, token);
+        if (cached != null) {
+            return TokenValidationResult.valid(cached);
+        }
+        TokenValidationResult.Failure knownFailure = digest == null || invalidTokenCache == null ? null :
+            invalidTokenCache.get(digest);
+        if (knownFailure != null) {
+            return reject(null, knownFailure, null);
+        }
         try {
-            Jwts.parser().setSigningKey(key).parseClaimsJws(authToken);
-            return true;
-        } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
-            log.info("Invalid JWT signature.");
-            log.trace("Invalid JWT signature trace: {}", e);
+            return TokenValidationResult.valid(parseAuthentication(digest, token));
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            return reject(digest, TokenValidationResult.Failure.INVALID_SIGNATURE, e);
+        } catch (MalformedJwtException e) {
+            return reject(digest, TokenValidationResult.Failure.MALFORMED, e);
         } catch (ExpiredJwtException e) {
-            log.info("Expired JWT token.");
-            log.trace("Expired JWT token trace: {}", e);
+            return reject(digest, TokenValidationResult.Failure.EXPIRED, e);
         } catch (UnsupportedJwtException e) {
-            log.info("Unsupported JWT token.");
-            log.trace("Unsupported JWT token trace: {}", e);
+            return reject(digest, TokenValidationResult.Failure.UNSUPPORTED, e);
         } catch (IllegalArgumentException e) {
-            log.info("JWT token compact of handler are invalid.");
-            log.trace("JWT token compact of handler are invalid trace: {}", e);
+            return reject(digest, TokenValidationResult.Failure.INVALID, e);
+        }
+    }
+
+    public Authentication getAuthentication(String token) {
+        reloadKeyringIfDue();
+        ByteBuffer digest = authenticationCache != null ? TokenAuthenticationCache.digest(token) : null;
+        Authentication cached = getCachedAuthentication(digest, token);
+        if (cached != null) {
+            return cached;
+        }
+        return parseAuthentication(digest, token);
+    }
+
+    public boolean validateToken(String authToken) {
+        return resolveAuthentication(authToken).isValid();
+    }
+
+    private Authentication getCachedAuthentication(ByteBuffer digest, String token) {
+        return authenticationCache == null ? null : authenticationCache.get(digest, token);
+    }
+
+    private void reloadKeyringIfDue() {
+        if (keyring != null) {
+            keyring.reloadIfDue();
+        }
+    }
+
+    private TokenValidationResult reject(ByteBuffer digest, TokenValidationResult.Failure failure, Exception cause) {
+        if (digest != null && invalidTokenCache != null) {
+            invalidTokenCache.put(digest, failure);
+        }
+        invalidTokenReporter.report(failure, cause);
+        return TokenValidationResult.invalid(failure);
+    }
+
+    private Authentication parseAuthentication(ByteBuffer digest, String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        Collection<GrantedAuthority> authorities = authoritiesInterner.intern(claims.get(AUTHORITIES_KEY).toString());
+
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        Authentication authentication = new JWTAuthenticationToken(principal, token, authorities);
+        if (authenticationCache != null) {
+            authenticationCache.put(digest, authentication, claims.getExpiration());
         }
-        return false;
+        return authentication;
     }
 }
@@ -0,0 +1,68 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.springframework.security.core.Authentication;
+
+/**
+ * Outcome of {@link TokenProvider#resolveAuthentication(String)}: either the {@link Authentication} of a valid
+ * token, or the reason why the token was rejected.
+ */
+public final class TokenValidationResult {
+
+    /**
+     * Reasons for rejecting a JWT.
+     */
+    public enum Failure {
+        INVALID_SIGNATURE,
+        MALFORMED,
+        EXPIRED,
+        UNSUPPORTED,
+        INVALID
+    }
+
+    private final Authentication authentication;
+
+    private final Failure failure;
+
+    private TokenValidationResult(Authentication authentication, Failure failure) {
+        this.authentication = authentication;
+        this.failure = failure;
+    }
+
+    public static TokenValidationResult valid(Authentication authentication) {
+        return new TokenValidationResult(authentication, null);
+    }
+
+    public static TokenValidationResult invalid(Failure failure) {
+        return new TokenValidationResult(null, failure);
+    }
+
+    public boolean isValid() {
+        return authentication != null;
+    }
+
+    /**
+     * Get the authentication of a valid token.
+     *
+     * @return the authentication, or {@code null} if the token was rejected.
+     */
+    public Authentication getAuthentication() {
+        return authentication;
+    }
+
+    /**
+     * Get the reason why the token was rejected.
+     *
+     * @return the failure, or {@code null} if the token is valid.
+     */
+    public Failure getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenValidationResult{" +
+            "valid=" + isValid() +
+            ", failure=" + failure +
+            '}';
+    }
+}
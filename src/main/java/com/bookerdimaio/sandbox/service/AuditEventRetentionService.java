@@ -0,0 +1,233 @@
+package com.bookerdimaio.sandbox.service;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ILock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service for applying the retention period of the audit events.
+ * <p>
+ * On PostgreSQL, the audit events are partitioned by month: the partitions of the coming months are created ahead,
+ * and the expired partitions are dropped or detached as a whole, see
+ * {@link ApplicationProperties.Audit.Retention.Mode}, which costs neither row deletions nor vacuum. The event data,
+ * which is not partitioned, is deleted with the partition of its events. Other databases, such as H2 in development,
+ * have no partitions: the expired events are deleted.
+ * <p>
+ * Dates are in UTC, like the stored event dates.
+ * <p>
+ * The retention is applied by one instance of the cluster at a time, the others skip it. Each step checks the
+ * current state of the partitions, so that applying the retention again does nothing.
+ */
+@Service
+public class AuditEventRetentionService {
+
+    static final String PARTITIONED_TABLE = "jhi_persistent_audit_event";
+
+    static final String DEFAULT_PARTITION = PARTITIONED_TABLE + "_default";
+
+    static final String LOCK_NAME = "audit-event-retention";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITIONED_TABLE + "_(\\d{4})_(\\d{2})");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String SELECT_PARTITIONS_SQL = "select c.relname from pg_inherits i " +
+        "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent where p.relname = ?";
+
+    private static final String IS_PARTITION_SQL = "select count(*) from pg_inherits i " +
+        "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent " +
+        "where p.relname = ? and c.relname = ?";
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventRetentionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final ApplicationProperties.Audit.Retention retention;
+
+    private final boolean partitioned;
+
+    public AuditEventRetentionService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      HazelcastInstance hazelcastInstance,
+                                      ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hazelcastInstance = hazelcastInstance;
+        this.retention = applicationProperties.getAudit().getRetention();
+        this.partitioned = "PostgreSQL".equals(databaseProductName(dataSource));
+    }
+
+    /**
+     * Apply the retention period.
+     * <p>
+     * This is scheduled to get fired every day, at 01:00 (am) by default.
+     */
+    @Scheduled(cron = "${application.audit.retention.cron:0 0 1 * * ?}")
+    public void applyRetention() {
+        if (retention.isEnabled()) {
+            applyRetention(Instant.now());
+        }
+    }
+
+    /**
+     * Apply the retention period at a given date, unless another instance of the cluster is applying it.
+     *
+     * @param now the current date.
+     */
+    public void applyRetention(Instant now) {
+        ILock lock = hazelcastInstance.getLock(LOCK_NAME);
+        if (!lock.tryLock()) {
+            log.debug("The retention of the audit events is applied by another instance");
+            return;
+        }
+        try {
+            YearMonth currentMonth = YearMonth.from(now.atOffset(ZoneOffset.UTC));
+            YearMonth firstKeptMonth = currentMonth.minusMonths(retention.getMonths());
+            if (partitioned) {
+                maintainPartitions(currentMonth, firstKeptMonth);
+            } else {
+                deleteEventsBefore(firstKeptMonth);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void maintainPartitions(YearMonth currentMonth, YearMonth firstKeptMonth) {
+        Set<YearMonth> partitions = new TreeSet<>();
+        for (String name : jdbcTemplate.queryForList(SELECT_PARTITIONS_SQL, String.class, PARTITIONED_TABLE)) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                partitions.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        for (int i = 0; i <= retention.getPremadeMonths(); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            if (!partitions.contains(month)) {
+                transactionTemplate.execute(status -> {
+                    createPartition(month);
+                    return null;
+                });
+            }
+        }
+        for (YearMonth month : partitions) {
+            if (month.isBefore(firstKeptMonth)) {
+                transactionTemplate.execute(status -> {
+                    removePartition(month);
+                    return null;
+                });
+            }
+        }
+        transactionTemplate.execute(status -> {
+            int deleted = deleteEvents(DEFAULT_PARTITION, firstKeptMonth);
+            if (deleted > 0) {
+                log.info("Deleted {} expired audit events from the default partition", deleted);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Create the partition of a month, unless it is already attached. Events of this month stored in the default
+     * partition, because its partition did not exist yet, are moved to the new partition before it is attached.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (isPartition(partition)) {
+            return;
+        }
+        log.info("Creating audit event partition {}", partition);
+        jdbcTemplate.execute("create table if not exists " + partition + " (like " + PARTITIONED_TABLE +
+            " including defaults including constraints)");
+        jdbcTemplate.update("with moved as (delete from " + DEFAULT_PARTITION +
+            " where event_date >= ? and event_date < ? returning *) insert into " + partition +
+            " select * from moved", start(month), start(month.plusMonths(1)));
+        jdbcTemplate.execute("alter table " + PARTITIONED_TABLE + " attach partition " + partition +
+            " for values from ('" + start(month) + "') to ('" + start(month.plusMonths(1)) + "')");
+    }
+
+    /**
+     * Drop or detach the partition of a month, unless it is no longer attached.
+     */
+    private void removePartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (!isPartition(partition)) {
+            return;
+        }
+        String eventData = "select event_id from " + partition;
+        if (retention.getMode() == ApplicationProperties.Audit.Retention.Mode.ARCHIVE) {
+            log.info("Archiving audit event partition {}", partition);
+            jdbcTemplate.execute("create table if not exists jhi_persistent_audit_evt_data_" +
+                month.format(PARTITION_SUFFIX) + " as select * from jhi_persistent_audit_evt_data " +
+                "where event_id in (" + eventData + ")");
+            jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in (" + eventData + ")");
+            jdbcTemplate.execute("alter table " + PARTITIONED_TABLE + " detach partition " + partition);
+        } else {
+            log.info("Dropping audit event partition {}", partition);
+            jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in (" + eventData + ")");
+            jdbcTemplate.execute("drop table if exists " + partition);
+        }
+    }
+
+    private boolean isPartition(String table) {
+        Long count = jdbcTemplate.queryForObject(IS_PARTITION_SQL, Long.class, PARTITIONED_TABLE, table);
+        return count != null && count > 0;
+    }
+
+    private void deleteEventsBefore(YearMonth firstKeptMonth) {
+        Integer deleted = transactionTemplate.execute(status -> deleteEvents(PARTITIONED_TABLE, firstKeptMonth));
+        log.debug("Deleted {} audit events older than {}", deleted, firstKeptMonth);
+    }
+
+    private int deleteEvents(String table, YearMonth firstKeptMonth) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        Timestamp cutoff = Timestamp.from(start(firstKeptMonth).toInstant(ZoneOffset.UTC));
+        jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in " +
+            "(select event_id from " + table + " where event_date < ?)", ps -> ps.setTimestamp(1, cutoff, utc));
+        return jdbcTemplate.update("delete from " + table + " where event_date < ?",
+            ps -> ps.setTimestamp(1, cutoff, utc));
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITIONED_TABLE + '_' + month.format(PARTITION_SUFFIX);
+    }
+
+    private static LocalDateTime start(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static String databaseProductName(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not read the database product name", e);
+        }
+    }
+}
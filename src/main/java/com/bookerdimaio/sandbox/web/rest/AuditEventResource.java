@@ -0,0 +1,147 @@
+package com.bookerdimaio.sandbox.web.rest;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.config.audit.AuditEventConverter;
+import com.bookerdimaio.sandbox.repository.AuditEventStreamRepository;
+import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REST controller for reading the audit events.
+ */
+@RestController
+@RequestMapping("/api")
+public class AuditEventResource {
+
+    /**
+     * Newline delimited JSON, one audit event per line.
+     */
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventResource.class);
+
+    private final AuditEventStreamRepository auditEventStreamRepository;
+
+    private final AuditEventConverter auditEventConverter;
+
+    private final ObjectMapper objectMapper;
+
+    private final TaskExecutor streamExecutor;
+
+    private final long streamTimeoutInMillis;
+
+    public AuditEventResource(AuditEventStreamRepository auditEventStreamRepository,
+                              AuditEventConverter auditEventConverter, ObjectMapper objectMapper,
+                              @Qualifier("auditEventStreamExecutor") TaskExecutor streamExecutor,
+                              ApplicationProperties applicationProperties) {
+        this.auditEventStreamRepository = auditEventStreamRepository;
+        this.auditEventConverter = auditEventConverter;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+        this.streamTimeoutInMillis =
+            TimeUnit.SECONDS.toMillis(applicationProperties.getAudit().getStreamTimeoutInSeconds());
+    }
+
+    /**
+     * {@code GET  /audits/stream} : stream the audit events, ordered by principal and date.
+     * <p>
+     * Events are read from the database and written to the response one at a time, so that large date ranges do
+     * not need to fit in memory. Streams are written on the threads of the {@code auditEventStreamExecutor}, and
+     * cut off after {@code application.audit.stream-timeout-in-seconds}.
+     *
+     * @param principal the principal of the events, all principals if not set.
+     * @param from the date from which the events happened, inclusive.
+     * @param to the date until which the events happened, exclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the events as newline delimited JSON, or
+     * with status {@code 503 (Service Unavailable)} if too many streams are being written.
+     */
+    @GetMapping("/audits/stream")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<ResponseBodyEmitter> streamAuditEvents(
+        @RequestParam(required = false) String principal,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        log.debug("REST request to stream AuditEvents of principal {} from {} to {}", principal, from, to);
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeoutInMillis);
+        try {
+            streamExecutor.execute(() -> writeAuditEvents(principal, from, to, emitter));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many audit event streams", e);
+        }
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void writeAuditEvents(String principal, Instant from, Instant to, ResponseBodyEmitter emitter) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            OutputStream outputStream = new EmitterOutputStream(emitter);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                auditEventStreamRepository.forEach(principal, from, to, event -> {
+                    try {
+                        writer.writeValue(generator, auditEventConverter.convertToAuditEvent(event));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            emitter.complete();
+        } catch (IOException | RuntimeException e) {
+            // Also when the client went away, or the stream timed out
+            log.debug("Audit event stream ended early: {}", e.toString());
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Sends the buffers written by the JSON generator, which flushes when its buffer is full, through an emitter.
+     */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+
+        EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                emitter.send(Arrays.copyOfRange(b, off, off + len), APPLICATION_NDJSON);
+            }
+        }
+    }
+}
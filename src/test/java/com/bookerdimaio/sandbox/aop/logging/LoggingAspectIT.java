@@ -0,0 +1,171 @@
+package com.bookerdimaio.sandbox.aop.logging;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.service.AuditEventRetentionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for the {@link LoggingAspect} in {@code TIMING} mode, its {@link LoggingAspectEndpoint}, and the
+ * {@link SlowCallsEndpoint}. Every call of {@link AuditEventRetentionService#applyRetention(Instant)} is slow in
+ * these tests. Histograms and percentiles are enabled for every meter, as in the main configuration.
+ */
+@SpringBootTest(classes = Microservice1App.class, properties = {
+    "management.metrics.distribution.percentiles-histogram.all=true",
+    "management.metrics.distribution.percentiles.all=0.5, 0.99",
+    "application.aspect.slow-calls.thresholds.[com.bookerdimaio.sandbox.service.AuditEventRetentionService" +
+        ".applyRetention]=0"
+})
+public class LoggingAspectIT {
+
+    private static final String SERVICE_PACKAGE = "com.bookerdimaio.sandbox.service";
+
+    @Autowired
+    private LoggingAspect loggingAspect;
+
+    @Autowired
+    private LoggingAspectEndpoint loggingAspectEndpoint;
+
+    @Autowired
+    private SlowCallsEndpoint slowCallsEndpoint;
+
+    @Autowired
+    private AuditEventRetentionService auditEventRetentionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private double sampleRate;
+
+    @BeforeEach
+    public void setup() {
+        sampleRate = loggingAspect.getSampleRate();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loggingAspect.setSampleRate(sampleRate);
+        loggingAspect.setPackageEnabled(SERVICE_PACKAGE, true);
+        slowCallsEndpoint.clear();
+    }
+
+    @Test
+    public void testSampledCallsAreTimed() {
+        assertThat(loggingAspect.getMode()).isEqualTo(ApplicationProperties.Aspect.Mode.TIMING);
+        loggingAspectEndpoint.configure(null, null, 1.0);
+        long count = timedCalls();
+
+        auditEventRetentionService.applyRetention(Instant.now());
+        auditEventRetentionService.applyRetention(Instant.now());
+
+        assertThat(timedCalls()).isEqualTo(count + 2);
+
+        loggingAspectEndpoint.configure(null, null, 0.0);
+        auditEventRetentionService.applyRetention(Instant.now());
+
+        assertThat(timedCalls()).isEqualTo(count + 2);
+    }
+
+    @Test
+    public void testSampledTimersPublishNeitherHistogramNorPercentiles() {
+        loggingAspect.setSampleRate(1);
+        auditEventRetentionService.applyRetention(Instant.now());
+
+        HistogramSnapshot snapshot = meterRegistry.get(LoggingAspect.TIMER_NAME)
+            .tag("class", AuditEventRetentionService.class.getName())
+            .tag("method", "applyRetention")
+            .timer().takeSnapshot();
+        assertThat(snapshot.histogramCounts()).isEmpty();
+        assertThat(snapshot.percentileValues()).isEmpty();
+        Timer other = meterRegistry.timer("logging.aspect.it");
+        other.record(1, TimeUnit.MILLISECONDS);
+        assertThat(other.takeSnapshot().percentileValues()).hasSize(2);
+    }
+
+    @Test
+    public void testPackageIsDisabledAtRuntime() {
+        loggingAspect.setSampleRate(1);
+        auditEventRetentionService.applyRetention(Instant.now());
+        long count = timedCalls();
+
+        loggingAspectEndpoint.configure(SERVICE_PACKAGE, false, null);
+        auditEventRetentionService.applyRetention(Instant.now());
+
+        assertThat(timedCalls()).isEqualTo(count);
+        assertThat(loggingAspectEndpoint.settings()).containsEntry("sampleRate", 1.0);
+        assertThat(loggingAspect.getDisabledPackages()).containsExactly(SERVICE_PACKAGE);
+
+        loggingAspectEndpoint.configure(SERVICE_PACKAGE, true, null);
+        auditEventRetentionService.applyRetention(Instant.now());
+
+        assertThat(timedCalls()).isEqualTo(count + 1);
+        assertThat(loggingAspect.getDisabledPackages()).isEmpty();
+    }
+
+    @Test
+    public void testEnablingPackageEnablesSubPackages() {
+        loggingAspect.setPackageEnabled(SERVICE_PACKAGE + ".dto", false);
+        loggingAspect.setPackageEnabled("com.bookerdimaio.sandbox.serviceother", false);
+
+        loggingAspect.setPackageEnabled(SERVICE_PACKAGE, true);
+
+        assertThat(loggingAspect.getDisabledPackages()).containsExactly("com.bookerdimaio.sandbox.serviceother");
+        loggingAspect.setPackageEnabled("com.bookerdimaio.sandbox.serviceother", true);
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected() {
+        assertThatThrownBy(() -> loggingAspectEndpoint.configure(null, null, 2.0))
+            .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> loggingAspectEndpoint.configure(SERVICE_PACKAGE, null, null))
+            .isInstanceOf(InvalidEndpointRequestException.class);
+    }
+
+    @Test
+    public void testSlowCallsAreCapturedWhenNotSampled() {
+        loggingAspect.setSampleRate(0);
+        slowCallsEndpoint.clear();
+        Instant now = Instant.parse("2019-08-01T10:00:00Z");
+
+        auditEventRetentionService.applyRetention(now);
+
+        List<SlowCallDetector.SlowCall> slowCalls = slowCallsEndpoint.slowCalls();
+        assertThat(slowCalls).hasSize(1);
+        SlowCallDetector.SlowCall slowCall = slowCalls.get(0);
+        assertThat(slowCall.getClassName()).isEqualTo(AuditEventRetentionService.class.getName());
+        assertThat(slowCall.getMethodName()).isEqualTo("applyRetention");
+        assertThat(slowCall.getArguments()).isEqualTo("[" + now + "]");
+        assertThat(slowCall.getException()).isNull();
+        assertThat(slowCall.getStackTrace()).anyMatch(frame -> frame.contains(LoggingAspectIT.class.getName()));
+
+        loggingAspect.setPackageEnabled(SERVICE_PACKAGE, false);
+        auditEventRetentionService.applyRetention(now);
+
+        assertThat(slowCallsEndpoint.slowCalls()).hasSize(1);
+    }
+
+    private long timedCalls() {
+        Timer timer = meterRegistry.find(LoggingAspect.TIMER_NAME)
+            .tag("class", AuditEventRetentionService.class.getName())
+            .tag("method", "applyRetention")
+            .tag("exception", "none")
+            .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,96 @@
+package com.bookerdimaio.sandbox.aop.logging;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link SlowCallDetector}.
+ */
+public class SlowCallDetectorTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Aspect.SlowCalls slowCalls = applicationProperties.getAspect().getSlowCalls();
+        slowCalls.setThresholdInMillis(1000);
+        slowCalls.getThresholds().put("com.example", 500L);
+        slowCalls.getThresholds().put("com.example.service.FooService", 200L);
+        slowCalls.getThresholds().put("com.example.service.FooService.save", 50L);
+        slowCalls.getThresholds().put("com.example.service.BarService", -1L);
+        slowCalls.setCapacity(3);
+        slowCalls.setMaxArgumentsLength(10);
+        slowCalls.setMaxStackDepth(5);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testMostSpecificThresholdApplies() {
+        SlowCallDetector detector = new SlowCallDetector(applicationProperties, meterRegistry);
+
+        assertThat(detector.thresholdInNanos("com.example.service.FooService", "save"))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(detector.thresholdInNanos("com.example.service.FooService", "find"))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(detector.thresholdInNanos("com.example.web.FooResource", "find"))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(detector.thresholdInNanos("com.examples.FooService", "find"))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(detector.thresholdInNanos("com.example.service.BarService", "find"))
+            .isEqualTo(SlowCallDetector.DISABLED);
+    }
+
+    @Test
+    public void testDisabledDetectorTimesNothing() {
+        applicationProperties.getAspect().getSlowCalls().setEnabled(false);
+        SlowCallDetector detector = new SlowCallDetector(applicationProperties, meterRegistry);
+
+        assertThat(detector.thresholdInNanos("com.example.service.FooService", "save"))
+            .isEqualTo(SlowCallDetector.DISABLED);
+    }
+
+    @Test
+    public void testOldestSlowCallsAreReplaced() {
+        SlowCallDetector detector = new SlowCallDetector(applicationProperties, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            detector.record("com.example.service.FooService", "save" + i, new Object[0],
+                TimeUnit.MILLISECONDS.toNanos(100), null);
+        }
+
+        assertThat(detector.getSlowCalls()).extracting(SlowCallDetector.SlowCall::getMethodName)
+            .containsExactly("save4", "save3", "save2");
+        assertThat(meterRegistry.get("method.slow").tag("method", "save4").counter().count()).isEqualTo(1);
+
+        detector.clear();
+
+        assertThat(detector.getSlowCalls()).isEmpty();
+    }
+
+    @Test
+    public void testSlowCallIsCapturedWithArgumentsAndStack() {
+        SlowCallDetector detector = new SlowCallDetector(applicationProperties, meterRegistry);
+
+        detector.record("com.example.service.FooService", "save", new Object[]{"a long argument", 42},
+            TimeUnit.MILLISECONDS.toNanos(120), new IllegalStateException());
+
+        SlowCallDetector.SlowCall slowCall = detector.getSlowCalls().get(0);
+        assertThat(slowCall.getClassName()).isEqualTo("com.example.service.FooService");
+        assertThat(slowCall.getDurationInMillis()).isEqualTo(120);
+        assertThat(slowCall.getThreadName()).isEqualTo(Thread.currentThread().getName());
+        assertThat(slowCall.getArguments()).isEqualTo("[a long ar...");
+        assertThat(slowCall.getException()).isEqualTo(IllegalStateException.class.getName());
+        assertThat(slowCall.getStackTrace()).hasSize(5);
+        assertThat(slowCall.getStackTrace().get(0)).contains(SlowCallDetectorTest.class.getName());
+    }
+}
@@ -0,0 +1,101 @@
+package com.bookerdimaio.sandbox.config.audit;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link AuditEventConverter}.
+ */
+public class AuditEventConverterTest {
+
+    private final AuditEventConverter auditEventConverter = new AuditEventConverter();
+
+    @Test
+    public void testConvertToAuditEvents() {
+        List<PersistentAuditEvent> persistentAuditEvents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            persistentAuditEvents.add(persistentAuditEvent("user" + i));
+        }
+
+        List<AuditEvent> auditEvents = auditEventConverter.convertToAuditEvent(persistentAuditEvents);
+
+        assertThat(auditEvents).extracting(AuditEvent::getPrincipal).containsExactly("user0", "user1", "user2");
+        assertThat(auditEvents.get(0).getData()).containsOnlyKeys("remoteAddress");
+        assertThat(auditEventConverter.convertToAuditEvent((Iterable<PersistentAuditEvent>) null)).isEmpty();
+    }
+
+    @Test
+    public void testConvertStreamOfAuditEvents() {
+        Stream<AuditEvent> auditEvents = auditEventConverter.convertToAuditEvent(
+            Stream.of(persistentAuditEvent("user0"), persistentAuditEvent("user1")));
+
+        assertThat(auditEvents.map(AuditEvent::getPrincipal).collect(Collectors.toList()))
+            .containsExactly("user0", "user1");
+    }
+
+    @Test
+    public void testConvertedDataIsReadOnlyView() {
+        Map<String, String> data = new HashMap<>();
+        data.put("remoteAddress", "127.0.0.1");
+
+        Map<String, Object> objects = auditEventConverter.convertDataToObjects(data);
+
+        assertThat(objects).containsEntry("remoteAddress", "127.0.0.1");
+        assertThatThrownBy(() -> objects.put("sessionId", "session"))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(auditEventConverter.convertDataToObjects(null)).isEmpty();
+    }
+
+    @Test
+    public void testConvertInlineData() {
+        PersistentAuditEvent persistentAuditEvent = persistentAuditEvent("user");
+        persistentAuditEvent.getData().clear();
+        persistentAuditEvent.setInlineData(Collections.singletonMap("sessionId", "session"));
+
+        AuditEvent auditEvent = auditEventConverter.convertToAuditEvent(persistentAuditEvent);
+
+        assertThat(auditEvent.getData()).containsOnlyKeys("sessionId");
+    }
+
+    @Test
+    public void testConvertDataToStrings() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("127.0.0.1");
+        Map<String, Object> data = new HashMap<>();
+        data.put("details", new WebAuthenticationDetails(request));
+        data.put("count", 2);
+
+        Map<String, String> strings = auditEventConverter.convertDataToStrings(data);
+
+        assertThat(strings).containsEntry("remoteAddress", "127.0.0.1").containsEntry("count", "2")
+            .containsKey("sessionId").doesNotContainKey("details");
+        // Written events get their values truncated in place
+        strings.replaceAll((name, value) -> "value");
+        assertThat(strings).containsEntry("count", "value");
+    }
+
+    private static PersistentAuditEvent persistentAuditEvent(String principal) {
+        PersistentAuditEvent persistentAuditEvent = new PersistentAuditEvent();
+        persistentAuditEvent.setPrincipal(principal);
+        persistentAuditEvent.setAuditEventDate(Instant.now());
+        persistentAuditEvent.setAuditEventType("AUTHENTICATION_SUCCESS");
+        persistentAuditEvent.getData().put("remoteAddress", "127.0.0.1");
+        return persistentAuditEvent;
+    }
+}
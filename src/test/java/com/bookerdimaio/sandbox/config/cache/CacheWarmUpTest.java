@@ -0,0 +1,232 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link CacheWarmUp}.
+ */
+public class CacheWarmUpTest {
+
+    private HazelcastInstance hazelcastInstance;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private CacheWarmUp cacheWarmUp;
+
+    private volatile List<?> lastBatch;
+
+    private volatile Long lastId;
+
+    @BeforeEach
+    public void setup() {
+        Config config = new Config();
+        config.setInstanceName("cache-warm-up-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getMapConfigs().put("near.*", new MapConfig()
+            .setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true)));
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        // A single thread, so that the batches are loaded one at a time
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.initialize();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (cacheWarmUp != null) {
+            cacheWarmUp.destroy();
+        }
+        executor.shutdown();
+        hazelcastInstance.shutdown();
+    }
+
+    @Test
+    public void testOutOfServiceUntilMigrationAndWarmUpAreOver() throws Exception {
+        CompletableFuture<Void> migration = new CompletableFuture<>();
+        cacheWarmUp = new CacheWarmUp(hazelcastInstance, null, executor, migration, Collections.emptyList(),
+            10, 1, 60);
+
+        cacheWarmUp.onApplicationReady();
+        Thread.sleep(200);
+        assertThat(cacheWarmUp.getState()).isEqualTo(CacheWarmUp.State.WAITING);
+        assertThat(cacheWarmUp.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        migration.complete(null);
+        awaitState(CacheWarmUp.State.DONE);
+        assertThat(cacheWarmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void testUpWhenMigrationTimesOut() throws Exception {
+        cacheWarmUp = new CacheWarmUp(hazelcastInstance, null, executor, new CompletableFuture<>(),
+            Collections.singletonList("near.region"), 10, 1, 1);
+
+        cacheWarmUp.warmUp();
+        Thread.sleep(1100);
+
+        assertThat(cacheWarmUp.getState()).isEqualTo(CacheWarmUp.State.INCOMPLETE);
+        assertThat(cacheWarmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void testPopulatedRegionLoadedFromPeers() throws Exception {
+        IMap<Integer, String> map = hazelcastInstance.getMap("near.region");
+        for (int i = 0; i < 25; i++) {
+            map.put(i, "value" + i);
+        }
+        cacheWarmUp = new CacheWarmUp(hazelcastInstance, null, executor, CompletableFuture.completedFuture(null),
+            Collections.singletonList("near.region"), 10, 2, 60);
+
+        assertThat(cacheWarmUp.warmUp().get(10, TimeUnit.SECONDS)).isEqualTo(CacheWarmUp.State.DONE);
+
+        assertThat(cacheWarmUp.getState()).isEqualTo(CacheWarmUp.State.DONE);
+        CacheWarmUp.RegionReport report = (CacheWarmUp.RegionReport) cacheWarmUp.health().getDetails()
+            .get("near.region");
+        assertThat(report.getSource()).isEqualTo(CacheWarmUp.Source.PEERS);
+        assertThat(report.getEntries()).isEqualTo(25);
+        assertThat(map.getLocalMapStats().getNearCacheStats().getOwnedEntryCount()).isEqualTo(25);
+    }
+
+    @Test
+    public void testEmptyEntityRegionLoadedFromDatabase() throws Exception {
+        EntityManager entityManager = mock(EntityManager.class);
+        EntityManagerFactory entityManagerFactory = mockEntityManagerFactory(entityManager);
+        mockIdQuery(entityManager, Arrays.asList(1L, 2L, 3L, 4L, 5L), 2);
+        Query batchQuery = mock(Query.class);
+        when(entityManager.createQuery(contains("in :ids"))).thenReturn(batchQuery);
+        when(batchQuery.setParameter(eq("ids"), any())).thenAnswer(invocation -> {
+            lastBatch = invocation.getArgument(1);
+            return batchQuery;
+        });
+        when(batchQuery.getResultList()).thenAnswer(invocation -> lastBatch);
+
+        String region = PersistentAuditEvent.class.getName();
+        cacheWarmUp = new CacheWarmUp(hazelcastInstance, entityManagerFactory, executor,
+            CompletableFuture.completedFuture(null), Arrays.asList(region, "unknown"), 2, 1, 60);
+
+        assertThat(cacheWarmUp.warmUp().get(10, TimeUnit.SECONDS)).isEqualTo(CacheWarmUp.State.DONE);
+
+        assertThat(cacheWarmUp.getState()).isEqualTo(CacheWarmUp.State.DONE);
+        CacheWarmUp.RegionReport report = (CacheWarmUp.RegionReport) cacheWarmUp.health().getDetails().get(region);
+        assertThat(report.getSource()).isEqualTo(CacheWarmUp.Source.DATABASE);
+        assertThat(report.getEntries()).isEqualTo(5);
+        verify(entityManager).createQuery("select e.id from PersistentAuditEvent e order by e.id");
+        verify(entityManager, times(2))
+            .createQuery("select e.id from PersistentAuditEvent e where e.id > :last order by e.id");
+        verify(entityManager, times(3))
+            .createQuery("select e from PersistentAuditEvent e where e.id in :ids");
+        assertThat(((CacheWarmUp.RegionReport) cacheWarmUp.health().getDetails().get("unknown")).getSource())
+            .isEqualTo(CacheWarmUp.Source.NONE);
+    }
+
+    @Test
+    public void testBatchesAreLoadedInParallel() throws Exception {
+        EntityManager entityManager = mock(EntityManager.class);
+        EntityManagerFactory entityManagerFactory = mockEntityManagerFactory(entityManager);
+        mockIdQuery(entityManager, Arrays.asList(1L, 2L, 3L, 4L), 2);
+        Query batchQuery = mock(Query.class);
+        when(entityManager.createQuery(contains("in :ids"))).thenReturn(batchQuery);
+        when(batchQuery.setParameter(eq("ids"), any())).thenReturn(batchQuery);
+        // Both batches must be loading at once to get past the barrier
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        when(batchQuery.getResultList()).thenAnswer(invocation -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            return Arrays.asList(new Object(), new Object());
+        });
+        ThreadPoolTaskExecutor parallelExecutor = new ThreadPoolTaskExecutor();
+        parallelExecutor.setCorePoolSize(2);
+        parallelExecutor.initialize();
+        try {
+            String region = PersistentAuditEvent.class.getName();
+            cacheWarmUp = new CacheWarmUp(hazelcastInstance, entityManagerFactory, parallelExecutor,
+                CompletableFuture.completedFuture(null), Collections.singletonList(region), 2, 2, 60);
+
+            assertThat(cacheWarmUp.warmUp().get(10, TimeUnit.SECONDS)).isEqualTo(CacheWarmUp.State.DONE);
+
+            assertThat(((CacheWarmUp.RegionReport) cacheWarmUp.health().getDetails().get(region)).getEntries())
+                .isEqualTo(4);
+        } finally {
+            parallelExecutor.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EntityManagerFactory mockEntityManagerFactory(EntityManager entityManager) {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        Metamodel metamodel = mock(Metamodel.class);
+        EntityType<PersistentAuditEvent> entityType = mock(EntityType.class);
+        Type<Long> idType = mock(Type.class);
+        SingularAttribute<PersistentAuditEvent, Long> idAttribute = mock(SingularAttribute.class);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+        when(metamodel.getEntities()).thenReturn(Collections.singleton(entityType));
+        when(entityType.getJavaType()).thenReturn(PersistentAuditEvent.class);
+        when(entityType.getName()).thenReturn("PersistentAuditEvent");
+        doReturn(idType).when(entityType).getIdType();
+        when(idType.getJavaType()).thenReturn(Long.class);
+        doReturn(idAttribute).when(entityType).getId(Long.class);
+        when(idAttribute.getName()).thenReturn("id");
+        return entityManagerFactory;
+    }
+
+    /**
+     * Answer the keyset queries of the identifiers, which are read one page at a time.
+     */
+    private void mockIdQuery(EntityManager entityManager, List<Long> ids, int pageSize) {
+        Query idQuery = mock(Query.class);
+        when(entityManager.createQuery(startsWith("select e.id"))).thenReturn(idQuery);
+        when(idQuery.setMaxResults(pageSize)).thenReturn(idQuery);
+        when(idQuery.setParameter(eq("last"), any())).thenAnswer(invocation -> {
+            lastId = invocation.getArgument(1);
+            return idQuery;
+        });
+        when(idQuery.getResultList()).thenAnswer(invocation -> {
+            int from = lastId == null ? 0 : ids.indexOf(lastId) + 1;
+            lastId = null;
+            return ids.subList(from, Math.min(from + pageSize, ids.size()));
+        });
+    }
+
+    private void awaitState(CacheWarmUp.State state) throws InterruptedException {
+        for (int i = 0; i < 50 && cacheWarmUp.getState() != state; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(cacheWarmUp.getState()).isEqualTo(state);
+    }
+}
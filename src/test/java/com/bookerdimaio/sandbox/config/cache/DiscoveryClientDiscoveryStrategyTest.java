@@ -0,0 +1,112 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.DiscoveryStrategyConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.properties.GroupProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link DiscoveryClientDiscoveryStrategy}, scaling a cluster through an
+ * {@link InMemoryDiscoveryClient}.
+ */
+public class DiscoveryClientDiscoveryStrategyTest {
+
+    private static final String SERVICE_ID = "discovery-test";
+
+    private static final int BASE_PORT = 15801;
+
+    private InMemoryDiscoveryClient discoveryClient;
+
+    private final List<HazelcastInstance> members = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        discoveryClient = new InMemoryDiscoveryClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        members.forEach(HazelcastInstance::shutdown);
+    }
+
+    @Test
+    public void testMembersFoundOnJoin() throws Exception {
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT);
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT + 1);
+
+        HazelcastInstance first = startMember(BASE_PORT);
+        HazelcastInstance second = startMember(BASE_PORT + 1);
+
+        awaitClusterSize(first, 2);
+        awaitClusterSize(second, 2);
+    }
+
+    @Test
+    public void testMembersStartedBeforeRegistrationMerge() throws Exception {
+        HazelcastInstance first = startMember(BASE_PORT);
+        HazelcastInstance second = startMember(BASE_PORT + 1);
+        assertThat(first.getCluster().getMembers()).hasSize(1);
+        assertThat(second.getCluster().getMembers()).hasSize(1);
+        first.getMap("test").put("key", "value");
+
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT);
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT + 1);
+        awaitClusterSize(first, 2);
+        awaitClusterSize(second, 2);
+
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT + 2);
+        HazelcastInstance third = startMember(BASE_PORT + 2);
+        awaitClusterSize(third, 3);
+        assertThat(third.getMap("test").get("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void testInstancesOfOtherServicesIgnored() {
+        discoveryClient.register("other-service", "127.0.0.1", BASE_PORT + 1);
+        discoveryClient.register(SERVICE_ID, "127.0.0.1", BASE_PORT);
+
+        DiscoveryClientDiscoveryStrategy strategy = new DiscoveryClientDiscoveryStrategy(
+            Logger.getLogger(DiscoveryClientDiscoveryStrategy.class), discoveryClient,
+            SERVICE_ID, instance -> InetSocketAddress.createUnresolved(instance.getHost(), instance.getPort()));
+
+        assertThat(strategy.discoverNodes()).hasSize(1)
+            .allSatisfy(node -> assertThat(node.getPrivateAddress().getPort()).isEqualTo(BASE_PORT));
+    }
+
+    private HazelcastInstance startMember(int port) {
+        Config config = new Config();
+        config.setInstanceName(SERVICE_ID + "-" + port);
+        config.getNetworkConfig().setPort(port).setPortAutoIncrement(false);
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getDiscoveryConfig().addDiscoveryStrategyConfig(
+            new DiscoveryStrategyConfig(new DiscoveryClientDiscoveryStrategyFactory(discoveryClient, SERVICE_ID,
+                instance -> InetSocketAddress.createUnresolved(instance.getHost(), instance.getPort()))));
+        config.setProperty(GroupProperty.DISCOVERY_SPI_ENABLED.getName(), "true");
+        config.setProperty(GroupProperty.WAIT_SECONDS_BEFORE_JOIN.getName(), "1");
+        config.setProperty(GroupProperty.MERGE_FIRST_RUN_DELAY_SECONDS.getName(), "2");
+        config.setProperty(GroupProperty.MERGE_NEXT_RUN_DELAY_SECONDS.getName(), "2");
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        members.add(member);
+        return member;
+    }
+
+    private static void awaitClusterSize(HazelcastInstance member, int size) throws InterruptedException {
+        for (int i = 0; i < 300 && member.getCluster().getMembers().size() != size; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(member.getCluster().getMembers()).hasSize(size);
+    }
+}
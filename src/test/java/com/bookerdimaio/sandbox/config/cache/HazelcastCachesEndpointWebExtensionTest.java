@@ -0,0 +1,72 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link HazelcastCachesEndpointWebExtension}.
+ */
+public class HazelcastCachesEndpointWebExtensionTest {
+
+    private HazelcastInstance hazelcastInstance;
+
+    private HazelcastCachesEndpointWebExtension extension;
+
+    @BeforeEach
+    public void setup() {
+        Config config = new Config();
+        config.setInstanceName("caches-endpoint-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getMapConfigs().put("near.*", new MapConfig()
+            .setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true)));
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        extension = new HazelcastCachesEndpointWebExtension(new CachesEndpoint(Collections.emptyMap()),
+            hazelcastInstance);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hazelcastInstance.shutdown();
+    }
+
+    @Test
+    public void testReportsStatisticsOfEveryMapOfEveryMember() {
+        IMap<String, String> map = hazelcastInstance.getMap("far.test");
+        map.put("key", "value");
+        map.get("key");
+        map.get("unknown");
+        IMap<String, String> nearMap = hazelcastInstance.getMap("near.test");
+        nearMap.put("key", "value");
+        nearMap.get("key");
+        nearMap.get("key");
+
+        HazelcastCachesEndpointWebExtension.HazelcastCachesReport report = extension.caches();
+
+        assertThat(report.getMembers()).hasSize(1);
+        MemberCacheStatistics member = report.getMembers().get(0);
+        assertThat(member.getError()).isNull();
+        assertThat(member.isLiteMember()).isFalse();
+        assertThat(member.getCaches()).containsOnlyKeys("far.test", "near.test");
+        CacheStatistics statistics = member.getCaches().get("far.test");
+        assertThat(statistics.getHits()).isEqualTo(1);
+        assertThat(statistics.getGets()).isEqualTo(2);
+        assertThat(statistics.getPuts()).isEqualTo(1);
+        assertThat(statistics.getOwnedEntryCount()).isEqualTo(1);
+        assertThat(statistics.getOwnedEntryMemoryCost()).isPositive();
+        assertThat(statistics.getNearCache()).isNull();
+        assertThat(member.getCaches().get("near.test").getNearCache().getHits()).isEqualTo(1);
+        assertThat(member.getCaches().get("near.test").getNearCache().getMisses()).isEqualTo(1);
+    }
+}
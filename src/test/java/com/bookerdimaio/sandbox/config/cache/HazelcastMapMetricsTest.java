@@ -0,0 +1,102 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link HazelcastMapMetrics}.
+ */
+public class HazelcastMapMetricsTest {
+
+    private HazelcastInstance hazelcastInstance;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        Config config = new Config();
+        config.setInstanceName("map-metrics-test");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getMapConfigs().put("near.*", new MapConfig()
+            .setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true)));
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        meterRegistry = new SimpleMeterRegistry();
+        new HazelcastMapMetrics(hazelcastInstance).bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hazelcastInstance.shutdown();
+    }
+
+    @Test
+    public void testHitRatioOfMapsCreatedAfterBinding() throws Exception {
+        IMap<String, String> map = hazelcastInstance.getMap("near.test");
+        hazelcastInstance.getMap("far.test");
+        map.put("key", "value");
+
+        map.get("key");
+        map.get("key");
+        map.get("key");
+        map.get("key");
+
+        assertThat(awaitGauge("near.test", true).value()).isEqualTo(0.75);
+        assertThat(meterRegistry.find("cache.near.hit.ratio").tag("cache", "far.test").gauge()).isNull();
+    }
+
+    @Test
+    public void testEveryMapIsBound() throws Exception {
+        IMap<String, String> map = hazelcastInstance.getMap("far.bound");
+        map.put("key", "value");
+        map.get("key");
+        map.get("unknown");
+        awaitMeter("cache.gets", "far.bound", true);
+
+        assertThat(meterRegistry.get("cache.gets").tag("name", "far.bound").tag("cacheManager", "cacheManager")
+            .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.puts").tag("name", "far.bound").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.entries").tag("name", "far.bound").tag("ownership", "owned")
+            .gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets.latency").tag("name", "far.bound").functionTimer().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void testGaugeIsRemovedWithItsMap() throws Exception {
+        IMap<String, String> map = hazelcastInstance.getMap("near.destroyed");
+        assertThat(awaitGauge("near.destroyed", true)).isNotNull();
+
+        map.destroy();
+
+        assertThat(awaitGauge("near.destroyed", false)).isNull();
+        assertThat(awaitMeter("cache.gets", "near.destroyed", false)).isNull();
+    }
+
+    private Gauge awaitGauge(String mapName, boolean registered) throws InterruptedException {
+        return (Gauge) awaitMeter("cache.near.hit.ratio", mapName, registered);
+    }
+
+    /**
+     * Distributed object events are delivered asynchronously, wait for the meter of a map to be (un)registered.
+     */
+    private Meter awaitMeter(String name, String mapName, boolean registered) throws InterruptedException {
+        Meter meter = meterRegistry.find(name).tag("name", mapName).meter();
+        for (int i = 0; i < 50 && (meter != null) != registered; i++) {
+            Thread.sleep(100);
+            meter = meterRegistry.find(name).tag("name", mapName).meter();
+        }
+        return meter;
+    }
+}
@@ -0,0 +1,120 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.config.NearCacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link HazelcastRegionConfigurer}.
+ */
+public class HazelcastRegionConfigurerTest {
+
+    private static final String DOMAIN_PATTERN = "com.bookerdimaio.sandbox.domain.*";
+
+    private static final String HOT_REGION = "com.bookerdimaio.sandbox.domain.Hot";
+
+    private Config config;
+
+    @BeforeEach
+    public void setup() {
+        config = new Config();
+        config.getMapConfigs().put("default", new MapConfig()
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setMaxSizeConfig(new MaxSizeConfig(0, MaxSizeConfig.MaxSizePolicy.USED_HEAP_SIZE)));
+        config.getMapConfigs().put(DOMAIN_PATTERN, new MapConfig()
+            .setTimeToLiveSeconds(3600)
+            .setNearCacheConfig(new NearCacheConfig()));
+    }
+
+    @Test
+    public void testRegionsAreBoundFromBracketedNames() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("application.cache.hazelcast.regions.default.max-size-policy", "USED_HEAP_PERCENTAGE");
+        properties.put("application.cache.hazelcast.regions.default.max-size", "25");
+        properties.put("application.cache.hazelcast.regions[" + HOT_REGION + "].eviction-policy", "LFU");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+
+        new Binder(new MapConfigurationPropertySource(properties))
+            .bind("application", Bindable.ofInstance(applicationProperties));
+
+        assertThat(applicationProperties.getCache().getHazelcast().getRegions()).containsOnlyKeys("default", HOT_REGION);
+        assertThat(applicationProperties.getCache().getHazelcast().getRegions().get(HOT_REGION).getEvictionPolicy())
+            .isEqualTo(EvictionPolicy.LFU);
+    }
+
+    @Test
+    public void testExistingConfigIsUpdatedInPlace() {
+        ApplicationProperties.Cache.Hazelcast.Region region = new ApplicationProperties.Cache.Hazelcast.Region();
+        region.setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy.USED_HEAP_PERCENTAGE);
+        region.setMaxSize(25);
+
+        HazelcastRegionConfigurer.configure(config, singleRegion("default", region));
+
+        MaxSizeConfig maxSizeConfig = config.getMapConfig("default").getMaxSizeConfig();
+        assertThat(maxSizeConfig.getMaxSizePolicy()).isEqualTo(MaxSizeConfig.MaxSizePolicy.USED_HEAP_PERCENTAGE);
+        assertThat(maxSizeConfig.getSize()).isEqualTo(25);
+    }
+
+    @Test
+    public void testEntityRegionInheritsDomainConfig() {
+        ApplicationProperties.Cache.Hazelcast.Region region = new ApplicationProperties.Cache.Hazelcast.Region();
+        region.setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy.PER_NODE);
+        region.setMaxSize(50000);
+        region.setEvictionPolicy(EvictionPolicy.LFU);
+        region.setMaxIdleSeconds(60);
+        region.setBackupCount(0);
+        region.setAsyncBackupCount(1);
+
+        HazelcastRegionConfigurer.configure(config, singleRegion(HOT_REGION, region));
+
+        MapConfig hot = config.findMapConfig(HOT_REGION);
+        assertThat(hot.getName()).isEqualTo(HOT_REGION);
+        assertThat(hot.getTimeToLiveSeconds()).isEqualTo(3600);
+        assertThat(hot.getNearCacheConfig()).isNotNull();
+        assertThat(hot.getMaxSizeConfig().getMaxSizePolicy()).isEqualTo(MaxSizeConfig.MaxSizePolicy.PER_NODE);
+        assertThat(hot.getMaxSizeConfig().getSize()).isEqualTo(50000);
+        assertThat(hot.getEvictionPolicy()).isEqualTo(EvictionPolicy.LFU);
+        assertThat(hot.getMaxIdleSeconds()).isEqualTo(60);
+        assertThat(hot.getBackupCount()).isZero();
+        assertThat(hot.getAsyncBackupCount()).isEqualTo(1);
+        assertThat(config.findMapConfig("com.bookerdimaio.sandbox.domain.Cold").getEvictionPolicy())
+            .isEqualTo(EvictionPolicy.NONE);
+    }
+
+    @Test
+    public void testOtherRegionInheritsDefaultConfig() {
+        ApplicationProperties.Cache.Hazelcast.Region region = new ApplicationProperties.Cache.Hazelcast.Region();
+        region.setTimeToLiveSeconds(60);
+
+        HazelcastRegionConfigurer.configure(config, singleRegion("sessions", region));
+
+        MapConfig sessions = config.getMapConfigs().get("sessions");
+        assertThat(sessions.getTimeToLiveSeconds()).isEqualTo(60);
+        assertThat(sessions.getEvictionPolicy()).isEqualTo(EvictionPolicy.LRU);
+        assertThat(sessions.getMaxSizeConfig().getMaxSizePolicy())
+            .isEqualTo(MaxSizeConfig.MaxSizePolicy.USED_HEAP_SIZE);
+        assertThat(sessions.getNearCacheConfig()).isNull();
+        assertThat(config.getMapConfig("default").getTimeToLiveSeconds()).isZero();
+    }
+
+    private static Map<String, ApplicationProperties.Cache.Hazelcast.Region> singleRegion(
+        String name, ApplicationProperties.Cache.Hazelcast.Region region) {
+        Map<String, ApplicationProperties.Cache.Hazelcast.Region> regions = new HashMap<>();
+        regions.put(name, region);
+        return regions;
+    }
+}
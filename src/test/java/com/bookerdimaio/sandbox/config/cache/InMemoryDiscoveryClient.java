@@ -0,0 +1,61 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link DiscoveryClient} keeping its registrations in memory, to run several cluster members without a registry.
+ */
+public class InMemoryDiscoveryClient implements DiscoveryClient {
+
+    private final Map<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Register an instance of a service.
+     *
+     * @param serviceId the service ID.
+     * @param host the host of the instance.
+     * @param port the port of the instance.
+     * @return the registered instance.
+     */
+    public ServiceInstance register(String serviceId, String host, int port) {
+        ServiceInstance instance = new DefaultServiceInstance(serviceId + ":" + host + ":" + port, serviceId, host,
+            port, false);
+        instances.computeIfAbsent(serviceId, id -> new CopyOnWriteArrayList<>()).add(instance);
+        return instance;
+    }
+
+    /**
+     * Remove the registration of an instance.
+     *
+     * @param instance the instance.
+     */
+    public void deregister(ServiceInstance instance) {
+        List<ServiceInstance> serviceInstances = instances.get(instance.getServiceId());
+        if (serviceInstances != null) {
+            serviceInstances.remove(instance);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "In-memory discovery client";
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances(String serviceId) {
+        return new ArrayList<>(instances.getOrDefault(serviceId, new ArrayList<>()));
+    }
+
+    @Override
+    public List<String> getServices() {
+        return new ArrayList<>(instances.keySet());
+    }
+}
@@ -0,0 +1,108 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.spi.serialization.SerializationService;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link OffHeapCacheTier}.
+ */
+public class OffHeapCacheTierTest {
+
+    private SerializationService serializationService;
+
+    private OffHeapCacheTier tier;
+
+    @BeforeEach
+    public void setup() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        tier = new OffHeapCacheTier(serializationService, 1024 * 1024, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tier.close();
+    }
+
+    @Test
+    public void testEntriesAreCopiedOffHeap() {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setId(1L);
+        event.setPrincipal("admin");
+        event.setAuditEventDate(Instant.parse("2019-07-01T10:00:00Z"));
+        event.setAuditEventType("AUTHENTICATION_SUCCESS");
+        event.getData().put("remoteAddress", "127.0.0.1");
+
+        tier.put(Arrays.asList("audit", 1L), new SimpleValueWrapper(event));
+        PersistentAuditEvent copy = (PersistentAuditEvent) tier.get(Arrays.asList("audit", 1L)).get();
+
+        assertThat(copy).isNotSameAs(event).isEqualTo(event);
+        assertThat(copy.getPrincipal()).isEqualTo("admin");
+        assertThat(copy.getData()).containsEntry("remoteAddress", "127.0.0.1");
+        assertThat(tier.getCache().memUsed()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testNullValuesAreCached() {
+        tier.put("missing", new SimpleValueWrapper(null));
+
+        assertThat(tier.get("missing")).isNotNull();
+        assertThat(tier.get("missing").get()).isNull();
+        assertThat(tier.get("other")).isNull();
+    }
+
+    @Test
+    public void testInvalidation() {
+        tier.put("first", new SimpleValueWrapper("value"));
+        tier.put("second", new SimpleValueWrapper("value"));
+
+        tier.invalidate("first");
+        assertThat(tier.get("first")).isNull();
+        assertThat(tier.get("second")).isNotNull();
+
+        tier.invalidateAll();
+        assertThat(tier.get("second")).isNull();
+    }
+
+    @Test
+    public void testMemoryBudgetEvictsEntries() {
+        char[] chars = new char[4096];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+        for (int i = 0; i < 1000; i++) {
+            tier.put(i, new SimpleValueWrapper(value));
+        }
+
+        assertThat(tier.getCache().memUsed()).isLessThanOrEqualTo(1024 * 1024);
+        assertThat(tier.getCache().size()).isLessThan(1000);
+        assertThat(tier.get(999).get()).isEqualTo(value);
+    }
+
+    @Test
+    public void testStatisticsArePublished() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        tier.bindTo(meterRegistry, Tags.of("cache", "test", "name", "test", "cacheManager", "local"));
+        tier.put("key", new SimpleValueWrapper("value"));
+        tier.get("key");
+        tier.get("other");
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter()
+            .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.off-heap.used").gauge().value()).isGreaterThan(0);
+        assertThat(meterRegistry.get("cache.off-heap.capacity").gauge().value()).isEqualTo(1024 * 1024);
+    }
+}
@@ -0,0 +1,171 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import com.hazelcast.core.HazelcastInstance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@link QueryResultCache}.
+ */
+@SpringBootTest(classes = Microservice1App.class, properties = "application.cache.query.enabled=true")
+public class QueryResultCacheIT {
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.execute(status -> {
+            entityManager.createQuery("select e from PersistentAuditEvent e", PersistentAuditEvent.class)
+                .getResultList().forEach(entityManager::remove);
+            return null;
+        });
+    }
+
+    @Test
+    public void testResultIsCachedUntilItsPartitionIsWritten() {
+        save("alice", "AUTHENTICATION_SUCCESS");
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        assertThat(eventsOf("alice")).hasSize(1);
+        assertThat(eventsOf("alice")).hasSize(1);
+        assertThat(gets("miss")).isEqualTo(misses + 1);
+        assertThat(gets("hit")).isEqualTo(hits + 1);
+
+        save("bob", "AUTHENTICATION_SUCCESS");
+        assertThat(eventsOf("alice")).hasSize(1);
+        assertThat(gets("hit")).isEqualTo(hits + 2);
+
+        save("alice", "AUTHENTICATION_FAILURE");
+        assertThat(eventsOf("alice")).hasSize(2);
+        assertThat(gets("miss")).isEqualTo(misses + 2);
+        assertThat(meterRegistry.get("cache.query.invalidations")
+            .tag("entity", PersistentAuditEvent.class.getName()).tag("cause", "insert").counter().count())
+            .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateAndDeleteInvalidateResultsContainingTheEntity() {
+        Long id = save("carol", "AUTHENTICATION_SUCCESS").getId();
+        save("dave", "AUTHENTICATION_SUCCESS");
+        assertThat(eventsOf("carol")).extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactly("AUTHENTICATION_SUCCESS");
+        eventsOf("dave");
+
+        transactionTemplate.execute(status -> {
+            entityManager.find(PersistentAuditEvent.class, id).setAuditEventType("AUTHENTICATION_FAILURE");
+            return null;
+        });
+        double misses = gets("miss");
+        assertThat(eventsOf("carol")).extracting(PersistentAuditEvent::getAuditEventType)
+            .containsExactly("AUTHENTICATION_FAILURE");
+        assertThat(gets("miss")).isEqualTo(misses + 1);
+
+        transactionTemplate.execute(status -> {
+            entityManager.remove(entityManager.find(PersistentAuditEvent.class, id));
+            return null;
+        });
+        assertThat(eventsOf("carol")).isEmpty();
+        assertThat(gets("miss")).isEqualTo(misses + 2);
+        assertThat(eventsOf("dave")).hasSize(1);
+        assertThat(gets("miss")).isEqualTo(misses + 2);
+    }
+
+    @Test
+    public void testWholeTableResultIsInvalidatedByAnyInsert() {
+        Supplier<List<PersistentAuditEvent>> query = () -> entityManager
+            .createQuery("select e from PersistentAuditEvent e order by e.id", PersistentAuditEvent.class)
+            .getResultList();
+        save("erin", "AUTHENTICATION_SUCCESS");
+        assertThat(queryResultCache.getResultList(PersistentAuditEvent.class, "all", query)).hasSize(1);
+
+        save("frank", "AUTHENTICATION_SUCCESS");
+
+        assertThat(queryResultCache.getResultList(PersistentAuditEvent.class, "all", query))
+            .extracting(PersistentAuditEvent::getPrincipal).containsExactly("erin", "frank");
+    }
+
+    @Test
+    public void testWritesOfATransactionInvalidateOnceCommitted() {
+        save("grace", "AUTHENTICATION_SUCCESS");
+        assertThat(eventsOf("grace")).hasSize(1);
+        String resultKey = PersistentAuditEvent.class.getName() + ":byPrincipal:grace";
+        double invalidations = invalidations("insert");
+
+        transactionTemplate.execute(status -> {
+            entityManager.persist(event("grace", "AUTHENTICATION_FAILURE"));
+            entityManager.persist(event("grace", "AUTHENTICATION_FAILURE"));
+            entityManager.flush();
+            assertThat(hazelcastInstance.getMap(QueryResultCache.MAP_NAME).containsKey(resultKey)).isTrue();
+            return null;
+        });
+
+        assertThat(hazelcastInstance.getMap(QueryResultCache.MAP_NAME).containsKey(resultKey)).isFalse();
+        assertThat(invalidations("insert")).isEqualTo(invalidations + 1);
+        assertThat(eventsOf("grace")).hasSize(3);
+    }
+
+    private List<PersistentAuditEvent> eventsOf(String principal) {
+        return queryResultCache.getResultList(PersistentAuditEvent.class, "byPrincipal:" + principal,
+            "principal", principal, () -> entityManager
+                .createQuery("select e from PersistentAuditEvent e where e.principal = :principal order by e.id",
+                    PersistentAuditEvent.class)
+                .setParameter("principal", principal)
+                .getResultList());
+    }
+
+    private PersistentAuditEvent save(String principal, String type) {
+        PersistentAuditEvent event = event(principal, type);
+        transactionTemplate.execute(status -> {
+            entityManager.persist(event);
+            return null;
+        });
+        return event;
+    }
+
+    private static PersistentAuditEvent event(String principal, String type) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType(type);
+        event.setAuditEventDate(Instant.now());
+        return event;
+    }
+
+    private double invalidations(String cause) {
+        Counter counter = meterRegistry.find("cache.query.invalidations")
+            .tag("entity", PersistentAuditEvent.class.getName()).tag("cause", cause).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.query.gets").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import com.hazelcast.core.Cluster;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link QueryResultCache}.
+ */
+public class QueryResultCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCachedResultIsLoadedFromTheSecondLevelCache() {
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        IMap<Object, Object> results = mock(IMap.class);
+        when(hazelcastInstance.getMap(anyString())).thenReturn(results);
+        when(hazelcastInstance.getCluster()).thenReturn(mock(Cluster.class));
+        List<Serializable> ids = Arrays.asList(1L, 2L, 3L);
+        when(results.get(PersistentAuditEvent.class.getName() + ":all"))
+            .thenReturn(new CachedQueryResult(ids, Collections.emptySet()));
+
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        Cache cache = mock(Cache.class);
+        PersistenceUnitUtil persistenceUnitUtil = mock(PersistenceUnitUtil.class);
+        Metamodel metamodel = mock(Metamodel.class);
+        EntityType<PersistentAuditEvent> entityType = mock(EntityType.class);
+        Type<Long> idType = mock(Type.class);
+        SingularAttribute<PersistentAuditEvent, Long> idAttribute = mock(SingularAttribute.class);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(entityManagerFactory.getPersistenceUnitUtil()).thenReturn(persistenceUnitUtil);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+        when(metamodel.entity(PersistentAuditEvent.class)).thenReturn(entityType);
+        when(entityType.getName()).thenReturn("PersistentAuditEvent");
+        doReturn(idType).when(entityType).getIdType();
+        when(idType.getJavaType()).thenReturn(Long.class);
+        doReturn(idAttribute).when(entityType).getId(Long.class);
+        when(idAttribute.getName()).thenReturn("id");
+
+        PersistentAuditEvent[] events = new PersistentAuditEvent[3];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new PersistentAuditEvent();
+            events[i].setId(i + 1L);
+            when(persistenceUnitUtil.getIdentifier(events[i])).thenReturn(i + 1L);
+        }
+        when(cache.contains(PersistentAuditEvent.class, 1L)).thenReturn(true);
+        when(cache.contains(PersistentAuditEvent.class, 3L)).thenReturn(true);
+        when(entityManager.find(PersistentAuditEvent.class, 1L)).thenReturn(events[0]);
+        when(entityManager.find(PersistentAuditEvent.class, 3L)).thenReturn(events[2]);
+        TypedQuery<PersistentAuditEvent> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(PersistentAuditEvent.class))).thenReturn(query);
+        when(query.setParameter(eq("ids"), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.singletonList(events[1]));
+
+        QueryResultCache queryResultCache = new QueryResultCache(hazelcastInstance, entityManagerFactory,
+            new SimpleMeterRegistry());
+        List<PersistentAuditEvent> result = queryResultCache.getResultList(PersistentAuditEvent.class, "all",
+            Collections::emptyList);
+
+        assertThat(result).containsExactly(events);
+        verify(query).setParameter("ids", Collections.singletonList(2L));
+        verify(entityManager, never()).find(PersistentAuditEvent.class, 2L);
+        verify(entityManager).close();
+    }
+}
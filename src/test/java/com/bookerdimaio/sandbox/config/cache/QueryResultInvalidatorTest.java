@@ -0,0 +1,96 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the {@link QueryResultInvalidator}.
+ */
+public class QueryResultInvalidatorTest {
+
+    private static final String ENTITY_NAME = "Event";
+
+    private QueryResultCache queryResultCache;
+
+    private QueryResultInvalidator invalidator;
+
+    private EntityPersister persister;
+
+    private EventSource session;
+
+    private ActionQueue actionQueue;
+
+    @BeforeEach
+    public void setup() {
+        queryResultCache = mock(QueryResultCache.class);
+        invalidator = new QueryResultInvalidator(queryResultCache);
+        persister = mock(EntityPersister.class);
+        when(persister.getEntityName()).thenReturn(ENTITY_NAME);
+        when(persister.getPropertyNames()).thenReturn(new String[]{"principal"});
+        when(persister.getPropertyTypes()).thenReturn(new Type[]{StringType.INSTANCE});
+        session = mock(EventSource.class);
+        actionQueue = mock(ActionQueue.class);
+        when(session.getActionQueue()).thenReturn(actionQueue);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWritesOfATransactionAreInvalidatedOnceCommitted() {
+        invalidator.onPostInsert(new PostInsertEvent(new Object(), 1L, new Object[]{"alice"}, persister, session));
+        invalidator.onPostInsert(new PostInsertEvent(new Object(), 2L, new Object[]{"bob"}, persister, session));
+        invalidator.onPostDelete(new PostDeleteEvent(new Object(), 3L, new Object[]{"carol"}, persister, session));
+
+        verify(queryResultCache, never()).invalidate(anyString(), anyCollection(), anyString());
+        ArgumentCaptor<AfterTransactionCompletionProcess> process =
+            ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(process.capture());
+
+        process.getValue().doAfterTransactionCompletion(true, session);
+
+        ArgumentCaptor<Collection<String>> dependencies = ArgumentCaptor.forClass(Collection.class);
+        verify(queryResultCache, times(1)).invalidate(eq(ENTITY_NAME), dependencies.capture(), eq("write"));
+        assertThat(dependencies.getValue()).containsExactlyInAnyOrder(
+            QueryResultCache.tableKey(ENTITY_NAME),
+            QueryResultCache.partitionKey(ENTITY_NAME, "principal", "alice"),
+            QueryResultCache.partitionKey(ENTITY_NAME, "principal", "bob"),
+            QueryResultCache.idKey(ENTITY_NAME, 3L));
+
+        // The next transaction of the session registers a new process
+        invalidator.onPostInsert(new PostInsertEvent(new Object(), 4L, new Object[]{"dave"}, persister, session));
+        verify(actionQueue, times(2)).registerProcess(any(AfterTransactionCompletionProcess.class));
+    }
+
+    @Test
+    public void testRolledBackWritesInvalidateNothing() {
+        invalidator.onPostInsert(new PostInsertEvent(new Object(), 1L, new Object[]{"alice"}, persister, session));
+        ArgumentCaptor<AfterTransactionCompletionProcess> process =
+            ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(process.capture());
+
+        process.getValue().doAfterTransactionCompletion(false, session);
+
+        verify(queryResultCache, never()).invalidate(anyString(), anyCollection(), anyString());
+    }
+}
@@ -0,0 +1,176 @@
+package com.bookerdimaio.sandbox.config.cache;
+
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.spring.cache.HazelcastCache;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.util.unit.DataSize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link TwoTierCacheManager}, with two cluster members.
+ */
+public class TwoTierCacheManagerTest {
+
+    private static HazelcastInstance firstMember;
+
+    private static HazelcastInstance secondMember;
+
+    private static SimpleMeterRegistry meterRegistry;
+
+    private static TwoTierCacheManager firstCacheManager;
+
+    private static TwoTierCacheManager secondCacheManager;
+
+    @BeforeAll
+    public static void setup() {
+        firstMember = Hazelcast.newHazelcastInstance(memberConfig(15901));
+        secondMember = Hazelcast.newHazelcastInstance(memberConfig(15902));
+        Map<String, ApplicationProperties.Cache.Local.LocalCache> configurations = new LinkedHashMap<>();
+        ApplicationProperties.Cache.Local.LocalCache defaults = new ApplicationProperties.Cache.Local.LocalCache();
+        defaults.setMaxSize(100L);
+        configurations.put(TwoTierCacheManager.DEFAULT, defaults);
+        ApplicationProperties.Cache.Local.LocalCache distributedOnly =
+            new ApplicationProperties.Cache.Local.LocalCache();
+        distributedOnly.setEnabled(false);
+        configurations.put("distributed-only", distributedOnly);
+        ApplicationProperties.Cache.Local.LocalCache small = new ApplicationProperties.Cache.Local.LocalCache();
+        small.setMaxSize(1L);
+        configurations.put("small", small);
+        ApplicationProperties.Cache.Local.LocalCache offHeap = new ApplicationProperties.Cache.Local.LocalCache();
+        offHeap.setStorage(ApplicationProperties.Cache.Local.LocalCache.Storage.OFF_HEAP);
+        offHeap.setMaxMemory(DataSize.ofMegabytes(1));
+        configurations.put("off-heap", offHeap);
+        meterRegistry = new SimpleMeterRegistry();
+        firstCacheManager = new TwoTierCacheManager(new HazelcastCacheManager(firstMember), configurations,
+            meterRegistry);
+        secondCacheManager = new TwoTierCacheManager(new HazelcastCacheManager(secondMember), configurations,
+            new SimpleMeterRegistry());
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        firstCacheManager.destroy();
+        secondCacheManager.destroy();
+        secondMember.shutdown();
+        firstMember.shutdown();
+    }
+
+    @Test
+    public void testReadsAreServedLocally() {
+        TwoTierCache cache = (TwoTierCache) firstCacheManager.getCache("local-reads");
+        cache.put("key", "value");
+
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> localCache =
+            ((CaffeineCacheTier) cache.getLocalTier()).getCache();
+        assertThat(localCache.stats().hitCount()).isEqualTo(1);
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "local-reads").tag("cacheManager", "local")
+            .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(localCache.asMap().get("key").get()).isEqualTo("value");
+    }
+
+    @Test
+    public void testUpdateOnAnotherMemberInvalidatesLocalCopy() throws Exception {
+        Cache firstCache = firstCacheManager.getCache("updates");
+        Cache secondCache = secondCacheManager.getCache("updates");
+        firstCache.put("key", "first");
+        assertThat(secondCache.get("key", String.class)).isEqualTo("first");
+
+        firstCache.put("key", "second");
+
+        awaitValue(secondCache, "key", "second");
+    }
+
+    @Test
+    public void testEvictionAndClearOnAnotherMemberInvalidateLocalCopies() throws Exception {
+        Cache firstCache = firstCacheManager.getCache("evictions");
+        Cache secondCache = secondCacheManager.getCache("evictions");
+        firstCache.put("evicted", "value");
+        firstCache.put("cleared", "value");
+        assertThat(secondCache.get("evicted", String.class)).isEqualTo("value");
+        assertThat(secondCache.get("cleared", String.class)).isEqualTo("value");
+
+        firstCache.evict("evicted");
+        awaitValue(secondCache, "evicted", null);
+        firstCache.clear();
+        awaitValue(secondCache, "cleared", null);
+    }
+
+    @Test
+    public void testOffHeapLocalCopyServesReads() throws Exception {
+        Cache firstCache = firstCacheManager.getCache("off-heap");
+        Cache secondCache = secondCacheManager.getCache("off-heap");
+        firstCache.put("key", "first");
+        // The copy made before the event of the first write reaches the second member is dropped, read again
+        for (int i = 0; i < 50 && ((TwoTierCache) secondCache).getLocalTier().get("key") == null; i++) {
+            assertThat(secondCache.get("key", String.class)).isEqualTo("first");
+            Thread.sleep(100);
+        }
+        assertThat(((TwoTierCache) secondCache).getLocalTier().get("key").get()).isEqualTo("first");
+
+        firstCache.put("key", "second");
+
+        awaitValue(secondCache, "key", "second");
+    }
+
+    @Test
+    public void testEvictionFromDistributedTierKeepsLocalCopy() throws Exception {
+        TwoTierCache cache = (TwoTierCache) secondCacheManager.getCache("bounded");
+        cache.put("key", "value");
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+
+        firstMember.getMap("bounded").evict("key");
+        Thread.sleep(500);
+
+        assertThat(firstMember.getMap("bounded").containsKey("key")).isFalse();
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+    }
+
+    @Test
+    public void testLocalCacheConfiguredByCacheName() {
+        assertThat(firstCacheManager.getCache("distributed-only")).isInstanceOf(HazelcastCache.class);
+        assertThat(localCache("small").policy().eviction().get().getMaximum()).isEqualTo(1);
+        assertThat(localCache("other").policy().eviction().get().getMaximum()).isEqualTo(100);
+        assertThat(((TwoTierCache) firstCacheManager.getCache("off-heap")).getLocalTier())
+            .isInstanceOf(OffHeapCacheTier.class);
+        assertThat(firstCacheManager.getCache("other")).isSameAs(firstCacheManager.getCache("other"));
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> localCache(String name) {
+        return ((CaffeineCacheTier) ((TwoTierCache) firstCacheManager.getCache(name)).getLocalTier()).getCache();
+    }
+
+    private static Config memberConfig(int port) {
+        Config config = new Config();
+        config.setInstanceName("two-tier-cache-test-" + port);
+        config.getNetworkConfig().setPort(port).setPortAutoIncrement(false);
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true)
+            .addMember("127.0.0.1:15901").addMember("127.0.0.1:15902");
+        return config;
+    }
+
+    private static void awaitValue(Cache cache, Object key, Object value) throws InterruptedException {
+        for (int i = 0; i < 50 && !Objects.equals(cache.get(key, Object.class), value); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(cache.get(key, Object.class)).isEqualTo(value);
+    }
+}
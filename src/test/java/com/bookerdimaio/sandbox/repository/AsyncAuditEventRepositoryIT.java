@@ -0,0 +1,258 @@
+package com.bookerdimaio.sandbox.repository;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.config.audit.AuditEventConverter;
+import com.bookerdimaio.sandbox.config.cache.QueryResultCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration tests for {@link AsyncAuditEventRepository}.
+ */
+@SpringBootTest(classes = Microservice1App.class)
+public class AsyncAuditEventRepositoryIT {
+
+    @Autowired
+    private AsyncAuditEventRepository auditEventRepository;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private AuditEventConverter auditEventConverter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("delete from jhi_persistent_audit_evt_data");
+            return jdbcTemplate.update("delete from jhi_persistent_audit_event");
+        });
+    }
+
+    @Test
+    public void testEventsAreWrittenByBatches() throws Exception {
+        double written = meterRegistry.get("audit.events.written").counter().count();
+        Map<String, Object> data = new HashMap<>();
+        data.put("remoteAddress", "127.0.0.1");
+        data.put("sessionId", "session");
+        for (int i = 0; i < 10; i++) {
+            auditEventRepository.add(new AuditEvent(Instant.now(), "batched-user", "AUTHENTICATION_SUCCESS", data));
+        }
+
+        awaitEventCount("batched-user", 10);
+
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(written + 10);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_evt_data d join " +
+            "jhi_persistent_audit_event e on e.event_id = d.event_id where e.principal = ?", Long.class,
+            "batched-user")).isEqualTo(20);
+        List<AuditEvent> events = auditEventRepository.find("batched-user", null, null);
+        assertThat(events).hasSize(10);
+        assertThat(events.get(0).getType()).isEqualTo("AUTHENTICATION_SUCCESS");
+        assertThat(events.get(0).getData()).containsEntry("remoteAddress", "127.0.0.1")
+            .containsEntry("sessionId", "session");
+    }
+
+    @Test
+    public void testFindFiltersByDateAndType() throws Exception {
+        Instant now = Instant.now();
+        auditEventRepository.add(new AuditEvent(now.minusSeconds(3600), "filtered-user", "AUTHENTICATION_SUCCESS",
+            Collections.emptyMap()));
+        auditEventRepository.add(new AuditEvent(now, "filtered-user", "AUTHENTICATION_SUCCESS",
+            Collections.emptyMap()));
+        auditEventRepository.add(new AuditEvent(now, "filtered-user", "AUTHENTICATION_FAILURE",
+            Collections.emptyMap()));
+        awaitEventCount("filtered-user", 3);
+
+        assertThat(auditEventRepository.find("filtered-user", now.minusSeconds(60), null)).hasSize(2);
+        assertThat(auditEventRepository.find(null, null, "AUTHENTICATION_FAILURE")).hasSize(1);
+        assertThat(auditEventRepository.find("other-user", null, null)).isEmpty();
+    }
+
+    @Test
+    public void testAuthorizationFailuresAreNotWritten() throws Exception {
+        auditEventRepository.add(new AuditEvent("denied-user", "AUTHORIZATION_FAILURE"));
+        auditEventRepository.add(new AuditEvent("denied-user", "AUTHENTICATION_SUCCESS"));
+        awaitEventCount("denied-user", 1);
+
+        assertThat(auditEventRepository.find("denied-user", null, "AUTHORIZATION_FAILURE")).isEmpty();
+    }
+
+    @Test
+    public void testFullBufferDropsEventsAndShutdownWritesBufferedEvents() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAudit().setBufferSize(2);
+        applicationProperties.getAudit().setOfferTimeoutInMillis(0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Not started: events stay in the buffer until the repository is destroyed
+        AsyncAuditEventRepository repository = new AsyncAuditEventRepository(persistenceAuditEventRepository,
+            auditEventConverter, dataSource, transactionManager, applicationContext.getBeanProvider(
+            QueryResultCache.class), applicationProperties, registry);
+        for (int i = 0; i < 5; i++) {
+            repository.add(new AuditEvent("burst-user", "AUTHENTICATION_SUCCESS"));
+        }
+
+        assertThat(registry.get("audit.events.dropped").tag("reason", "buffer-full").counter().count())
+            .isEqualTo(3);
+        assertThat(registry.get("audit.events.pending").gauge().value()).isEqualTo(2);
+
+        repository.destroy();
+        repository.add(new AuditEvent("burst-user", "AUTHENTICATION_SUCCESS"));
+
+        assertThat(eventCount("burst-user")).isEqualTo(2);
+        assertThat(registry.get("audit.events.written").counter().count()).isEqualTo(2);
+        assertThat(registry.get("audit.events.dropped").tag("reason", "shutdown").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void testShutdownDropsBufferedEventsWhenTheWriterDoesNotStop() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAudit().setBatchSize(1);
+        applicationProperties.getAudit().setShutdownTimeoutInSeconds(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // A database which does not answer, even once the writer is interrupted
+        PlatformTransactionManager stuckTransactionManager = mock(PlatformTransactionManager.class);
+        when(stuckTransactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Ignored, as by a blocked JDBC driver
+                }
+            }
+            throw new CannotCreateTransactionException("No database");
+        });
+        AsyncAuditEventRepository repository = new AsyncAuditEventRepository(persistenceAuditEventRepository,
+            auditEventConverter, dataSource, stuckTransactionManager, applicationContext.getBeanProvider(
+            QueryResultCache.class), applicationProperties, registry);
+        repository.afterPropertiesSet();
+        repository.add(new AuditEvent("stuck-user", "AUTHENTICATION_SUCCESS"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        repository.add(new AuditEvent("stuck-user", "AUTHENTICATION_SUCCESS"));
+        repository.add(new AuditEvent("stuck-user", "AUTHENTICATION_SUCCESS"));
+
+        try {
+            repository.destroy();
+
+            assertThat(registry.get("audit.events.dropped").tag("reason", "shutdown").counter().count())
+                .isEqualTo(2);
+            assertThat(registry.get("audit.events.pending").gauge().value()).isZero();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testEventDataIsStoredInTheEventRowWithColumnStorage() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAudit().setDataStorage(ApplicationProperties.Audit.DataStorage.COLUMN);
+        AsyncAuditEventRepository repository = new AsyncAuditEventRepository(persistenceAuditEventRepository,
+            auditEventConverter, dataSource, transactionManager, applicationContext.getBeanProvider(
+            QueryResultCache.class), applicationProperties, new SimpleMeterRegistry());
+        Map<String, Object> data = new HashMap<>();
+        data.put("remoteAddress", "127.0.0.1");
+        data.put("sessionId", "session \"quoted\"");
+        repository.add(new AuditEvent("inline-user", "AUTHENTICATION_SUCCESS", data));
+        repository.add(new AuditEvent("inline-user", "AUTHENTICATION_FAILURE"));
+        repository.destroy();
+
+        assertThat(eventCount("inline-user")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_evt_data", Long.class))
+            .isZero();
+        List<AuditEvent> events = repository.find("inline-user", null, "AUTHENTICATION_SUCCESS");
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getData()).containsEntry("remoteAddress", "127.0.0.1")
+            .containsEntry("sessionId", "session \"quoted\"");
+        assertThat(repository.find("inline-user", null, "AUTHENTICATION_FAILURE").get(0).getData()).isEmpty();
+
+        List<Map<String, Object>> streamed = new ArrayList<>();
+        new AuditEventStreamRepository(dataSource, transactionManager, applicationProperties).forEach(
+            "inline-user", null, null, event -> streamed.add(auditEventConverter.convertToAuditEvent(event).getData()));
+        assertThat(streamed).hasSize(2);
+        assertThat(streamed).anySatisfy(streamedData -> assertThat(streamedData)
+            .containsEntry("sessionId", "session \"quoted\"").hasSize(2));
+    }
+
+    @Test
+    public void testEventsOfBothDataStoragesAreStreamedWithTheirData() throws Exception {
+        for (ApplicationProperties.Audit.DataStorage dataStorage : ApplicationProperties.Audit.DataStorage.values()) {
+            ApplicationProperties applicationProperties = new ApplicationProperties();
+            applicationProperties.getAudit().setDataStorage(dataStorage);
+            AsyncAuditEventRepository repository = new AsyncAuditEventRepository(persistenceAuditEventRepository,
+                auditEventConverter, dataSource, transactionManager, applicationContext.getBeanProvider(
+                QueryResultCache.class), applicationProperties, new SimpleMeterRegistry());
+            repository.add(new AuditEvent("migrated-user", dataStorage.name(),
+                Collections.singletonMap("storage", dataStorage.name())));
+            repository.destroy();
+        }
+
+        for (ApplicationProperties.Audit.DataStorage dataStorage : ApplicationProperties.Audit.DataStorage.values()) {
+            ApplicationProperties applicationProperties = new ApplicationProperties();
+            applicationProperties.getAudit().setDataStorage(dataStorage);
+            List<AuditEvent> streamed = new ArrayList<>();
+            new AuditEventStreamRepository(dataSource, transactionManager, applicationProperties).forEach(
+                "migrated-user", null, null, event -> streamed.add(auditEventConverter.convertToAuditEvent(event)));
+            assertThat(streamed).hasSize(ApplicationProperties.Audit.DataStorage.values().length);
+            assertThat(streamed).allSatisfy(event -> assertThat(event.getData())
+                .containsOnly(entry("storage", event.getType())));
+        }
+    }
+
+    private void awaitEventCount(String principal, long count) throws InterruptedException {
+        for (int i = 0; i < 50 && eventCount(principal) < count; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(eventCount(principal)).isEqualTo(count);
+    }
+
+    private long eventCount(String principal) {
+        return jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_event where principal = ?",
+            Long.class, principal);
+    }
+}
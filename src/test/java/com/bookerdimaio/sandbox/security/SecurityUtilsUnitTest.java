@@ -1,5 +1,7 @@
 package com.bookerdimaio.sandbox.security;
 
+import com.bookerdimaio.sandbox.security.jwt.JWTAuthenticationToken;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -8,7 +10,10 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -68,4 +73,40 @@ public class SecurityUtilsUnitTest {
         assertThat(SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)).isFalse();
     }
 
+    @Test
+    public void testIsCurrentUserInRoleWithAuthorityMask() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        List<GrantedAuthority> authorities = Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority("ROLE_CUSTOM"));
+        securityContext.setAuthentication(new JWTAuthenticationToken("admin", "token", authorities));
+        SecurityContextHolder.setContext(securityContext);
+
+        assertThat(SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.USER)).isFalse();
+        assertThat(SecurityUtils.isCurrentUserInRole("ROLE_CUSTOM")).isTrue();
+        assertThat(SecurityUtils.isCurrentUserInRole("ROLE_OTHER")).isFalse();
+        assertThat(SecurityUtils.isAuthenticated()).isTrue();
+    }
+
+    @Test
+    public void testAnonymousWithAuthorityMaskIsNotAuthenticated() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
+        securityContext.setAuthentication(new JWTAuthenticationToken("anonymous", "token", authorities));
+        SecurityContextHolder.setContext(securityContext);
+
+        assertThat(SecurityUtils.isAuthenticated()).isFalse();
+    }
+
+    @Test
+    public void testAuthorityMask() {
+        long mask = AuthorityMask.of(Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority("ROLE_CUSTOM")));
+
+        assertThat(mask).isEqualTo(AuthorityMask.bitOf(AuthoritiesConstants.USER));
+        assertThat(AuthorityMask.bitOf(AuthoritiesConstants.ADMIN)).isNotZero();
+        assertThat(AuthorityMask.bitOf(AuthoritiesConstants.ANONYMOUS)).isNotZero();
+        assertThat(AuthorityMask.bitOf("ROLE_CUSTOM")).isZero();
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link AuthoritiesInterner} registry.
+ */
+public class AuthoritiesInternerTest {
+
+    private static final String CLAIM = AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER;
+
+    @Test
+    public void testInternReturnsSharedAuthorities() {
+        AuthoritiesInterner interner = new AuthoritiesInterner(10);
+
+        List<GrantedAuthority> authorities = interner.intern(CLAIM);
+
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(interner.intern(new String(CLAIM))).isSameAs(authorities);
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInternedAuthoritiesAreImmutable() {
+        List<GrantedAuthority> authorities = new AuthoritiesInterner(10).intern(CLAIM);
+
+        assertThatThrownBy(() -> authorities.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testInternIsBounded() {
+        AuthoritiesInterner interner = new AuthoritiesInterner(1);
+        interner.intern(AuthoritiesConstants.USER);
+
+        List<GrantedAuthority> authorities = interner.intern(CLAIM);
+
+        assertThat(authorities).hasSize(2);
+        assertThat(interner.intern(CLAIM)).isNotSameAs(authorities);
+        assertThat(interner.size()).isEqualTo(1);
+    }
+}
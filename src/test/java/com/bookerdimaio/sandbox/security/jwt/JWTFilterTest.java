@@ -1,9 +1,9 @@
 package com.bookerdimaio.sandbox.security.jwt;
 
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
 import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
 import io.github.jhipster.config.JHipsterProperties;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,16 +26,19 @@ public class JWTFilterTest {
 
     private JWTFilter jwtFilter;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
-    public void setup() {
+    public void setup() throws Exception {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
-        tokenProvider = new TokenProvider(jHipsterProperties);
-        ReflectionTestUtils.setField(tokenProvider, "key",
-            Keys.hmacShaKeyFor(Decoders.BASE64
-                .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8")));
+        jHipsterProperties.getSecurity().getAuthentication().getJwt()
+            .setBase64Secret("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8");
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), new SimpleMeterRegistry());
+        tokenProvider.afterPropertiesSet();
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtFilter = new JWTFilter(tokenProvider, meterRegistry);
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
@@ -112,4 +115,36 @@ public class JWTFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
+    @Test
+    public void testJWTFilterCountsRejectedHeaders() throws Exception {
+        String[] headers = {"Basic dXNlcjpwYXNzd29yZA==", "Bearer ", "Bearer a.b.c d", "Bearer a.b", "Bearer a..c",
+            "Bearer a.b.c.d", "Basic other"};
+        for (String header : headers) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(JWTFilter.AUTHORIZATION_HEADER, header);
+            request.setRequestURI("/api/test");
+            jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        }
+
+        assertThat(rejectedHeaders(JWTFilter.Rejection.NOT_BEARER)).isEqualTo(2);
+        assertThat(rejectedHeaders(JWTFilter.Rejection.EMPTY)).isEqualTo(1);
+        assertThat(rejectedHeaders(JWTFilter.Rejection.ILLEGAL_CHARACTER)).isEqualTo(1);
+        assertThat(rejectedHeaders(JWTFilter.Rejection.MALFORMED)).isEqualTo(3);
+    }
+
+    @Test
+    public void testCheckAcceptsWellFormedBearerTokens() {
+        String jwt = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("test-user", "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+
+        assertThat(JWTFilter.check("Bearer " + jwt)).isNull();
+        assertThat(JWTFilter.check("Bearer eyJhbGciOiJub25lIn0.eyJzdWIiOiJ0ZXN0In0.")).isNull();
+        assertThat(JWTFilter.check("bearer " + jwt)).isEqualTo(JWTFilter.Rejection.NOT_BEARER);
+    }
+
+    private double rejectedHeaders(JWTFilter.Rejection reason) {
+        return meterRegistry.get("security.authentication.rejected-headers")
+            .tag("reason", reason.name().toLowerCase()).counter().count();
+    }
 }
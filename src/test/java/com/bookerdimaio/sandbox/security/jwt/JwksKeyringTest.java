@@ -0,0 +1,105 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link JwksKeyring}.
+ */
+public class JwksKeyringTest {
+
+    private Path jwksFile;
+
+    private KeyPair rsaKeyPair;
+
+    private KeyPair ecKeyPair;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        jwksFile = Files.createTempFile("jwks", ".json");
+        rsaKeyPair = JwksTestUtil.rsaKeyPair();
+        ecKeyPair = JwksTestUtil.ecKeyPair();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jwksFile);
+    }
+
+    @Test
+    public void testLoadRsaAndEcKeys() throws Exception {
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        keys.put("rsa-1", rsaKeyPair.getPublic());
+        keys.put("ec-1", ecKeyPair.getPublic());
+        write(JwksTestUtil.jwks(keys));
+        JwksKeyring keyring = new JwksKeyring(jwksFile, 60);
+
+        keyring.load();
+
+        assertThat(keyring.getKey("rsa-1").getPublicKey()).isEqualTo(rsaKeyPair.getPublic());
+        assertThat(keyring.getKey("rsa-1").getAlgorithm()).isEqualTo("RS256");
+        assertThat(keyring.getKey("ec-1").getPublicKey()).isEqualTo(ecKeyPair.getPublic());
+        assertThat(keyring.getKey("unknown")).isNull();
+        assertThat(keyring.getKey(null)).isNull();
+    }
+
+    @Test
+    public void testLoadFailsWithoutKeys() throws Exception {
+        write("{\"keys\":[]}");
+
+        assertThatThrownBy(() -> new JwksKeyring(jwksFile, 60).load()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testReloadModifiedFile() throws Exception {
+        write(JwksTestUtil.jwks(Collections.singletonMap("rsa-1", rsaKeyPair.getPublic())));
+        JwksKeyring keyring = new JwksKeyring(jwksFile, 0);
+        AtomicInteger changes = new AtomicInteger();
+        keyring.addChangeListener(changes::incrementAndGet);
+        keyring.load();
+
+        keyring.reloadIfDue();
+        assertThat(changes).hasValue(1);
+
+        write(JwksTestUtil.jwks(Collections.singletonMap("ec-1", ecKeyPair.getPublic())));
+        Files.setLastModifiedTime(jwksFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        keyring.reloadIfDue();
+
+        assertThat(changes).hasValue(2);
+        assertThat(keyring.getKey("rsa-1")).isNull();
+        assertThat(keyring.getKey("ec-1")).isNotNull();
+    }
+
+    @Test
+    public void testInvalidReloadKeepsPreviousKeys() throws Exception {
+        write(JwksTestUtil.jwks(Collections.singletonMap("rsa-1", rsaKeyPair.getPublic())));
+        JwksKeyring keyring = new JwksKeyring(jwksFile, 0);
+        keyring.load();
+
+        write("{\"keys\":");
+        Files.setLastModifiedTime(jwksFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        keyring.reloadIfDue();
+
+        assertThat(keyring.getKey("rsa-1")).isNotNull();
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(jwksFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
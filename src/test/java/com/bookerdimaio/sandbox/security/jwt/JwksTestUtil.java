@@ -0,0 +1,74 @@
+package com.bookerdimaio.sandbox.security.jwt;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Utility class for building JWKS documents in tests.
+ */
+public final class JwksTestUtil {
+
+    private JwksTestUtil() {
+    }
+
+    public static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    public static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Build a JWKS document.
+     *
+     * @param keys the public keys, by key ID.
+     * @return the JSON document.
+     */
+    public static String jwks(Map<String, PublicKey> keys) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        keys.forEach((kid, key) -> {
+            if (json.charAt(json.length() - 1) == '}') {
+                json.append(',');
+            }
+            json.append("{\"kid\":\"").append(kid).append("\",\"use\":\"sig\",");
+            if (key instanceof RSAPublicKey) {
+                RSAPublicKey rsaKey = (RSAPublicKey) key;
+                json.append("\"kty\":\"RSA\",\"alg\":\"RS256\",\"n\":\"").append(encode(rsaKey.getModulus(), 0))
+                    .append("\",\"e\":\"").append(encode(rsaKey.getPublicExponent(), 0)).append('"');
+            } else {
+                ECPublicKey ecKey = (ECPublicKey) key;
+                json.append("\"kty\":\"EC\",\"alg\":\"ES256\",\"crv\":\"P-256\",\"x\":\"")
+                    .append(encode(ecKey.getW().getAffineX(), 32))
+                    .append("\",\"y\":\"").append(encode(ecKey.getW().getAffineY(), 32)).append('"');
+            }
+            json.append('}');
+        });
+        return json.append("]}").toString();
+    }
+
+    private static String encode(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
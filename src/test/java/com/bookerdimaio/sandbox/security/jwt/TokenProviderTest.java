@@ -1,8 +1,14 @@
 package com.bookerdimaio.sandbox.security.jwt;
 
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
 import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
 import java.util.*;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,27 +20,36 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import io.github.jhipster.config.JHipsterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TokenProviderTest {
 
     private static final long ONE_MINUTE = 60000;
 
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
     private Key key;
     private TokenProvider tokenProvider;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
-    public void setup() {
-        tokenProvider = new TokenProvider( new JHipsterProperties());
-        key = Keys.hmacShaKeyFor(Decoders.BASE64
-            .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8"));
+    public void setup() throws Exception {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), meterRegistry);
+        tokenProvider.afterPropertiesSet();
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BASE64_SECRET));
 
-        ReflectionTestUtils.setField(tokenProvider, "key", key);
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
     }
 
@@ -83,6 +98,242 @@ public class TokenProviderTest {
         assertThat(isTokenValid).isEqualTo(false);
     }
 
+    @Test
+    public void testGetAuthenticationIsCachedForValidToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        Authentication authentication = tokenProvider.getAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(authentication.getCredentials()).isEqualTo(token);
+        assertThat(tokenProvider.getAuthentication(token)).isSameAs(authentication);
+    }
+
+    @Test
+    public void testInvalidTokenIsNotServedFromCache() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        tokenProvider.getAuthentication(token);
+
+        String tamperedToken = token.substring(0, token.length() - 2);
+
+        assertThat(tokenProvider.validateToken(tamperedToken)).isFalse();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    public void testResolveAuthenticationReturnsAuthenticationOfValidToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        TokenValidationResult result = tokenProvider.resolveAuthentication(token);
+
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getFailure()).isNull();
+        assertThat(result.getAuthentication().getName()).isEqualTo("anonymous");
+        assertThat(result.getAuthentication().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    public void testTokensWithSameAuthoritiesShareAuthorityCollection() {
+        Authentication first = tokenProvider.getAuthentication(tokenProvider.createToken(createAuthentication(), false));
+        Authentication second = tokenProvider.getAuthentication(tokenProvider.createToken(createAuthentication(), true));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getAuthorities()).isSameAs(first.getAuthorities());
+    }
+
+    @Test
+    public void testResolveAuthenticationReportsFailureReason() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String expiredToken = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.resolveAuthentication(expiredToken).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.EXPIRED);
+        assertThat(tokenProvider.resolveAuthentication(createTokenWithDifferentSignature()).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+        assertThat(tokenProvider.resolveAuthentication(createUnsupportedToken()).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.UNSUPPORTED);
+        assertThat(tokenProvider.resolveAuthentication("").getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID);
+        assertThat(tokenProvider.resolveAuthentication(expiredToken).getAuthentication()).isNull();
+    }
+
+    @Test
+    public void testTemplateIssuesTokensEquivalentToBuilder() {
+        TokenTemplate template = tokenProvider.prepareTemplate(Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)),
+            false);
+
+        String token = template.createToken("user \"quoted\" \u00e9");
+        Claims claims = Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("user \"quoted\" \u00e9");
+        assertThat(claims.get("auth")).isEqualTo(AuthoritiesConstants.USER + "," + AuthoritiesConstants.ADMIN);
+        assertThat(claims.getExpiration()).isCloseTo(new Date(System.currentTimeMillis() + ONE_MINUTE), 2000);
+        assertThat(tokenProvider.getAuthentication(token).getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
+    @Test
+    public void testTemplatePadsStaticClaimsOfAnyLength() {
+        for (String role : Arrays.asList("A", "AB", "ABC")) {
+            String token = tokenProvider.prepareTemplate(Collections.singletonList(new SimpleGrantedAuthority(role)), true)
+                .createToken("user");
+
+            assertThat(tokenProvider.resolveAuthentication(token).getAuthentication().getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly(role);
+        }
+    }
+
+    @Test
+    public void testDisabledAuthenticationCacheIsNotCreated() throws Exception {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getAuthenticationCache().setEnabled(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenProvider uncachedTokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, registry);
+        uncachedTokenProvider.afterPropertiesSet();
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(uncachedTokenProvider.resolveAuthentication(token).isValid()).isTrue();
+        Authentication authentication = uncachedTokenProvider.getAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(uncachedTokenProvider.getAuthentication(token)).isNotSameAs(authentication);
+        assertThat(registry.find("cache.gets").tag("cache", TokenAuthenticationCache.CACHE_NAME).meters()).isEmpty();
+    }
+
+    @Test
+    public void testRepeatedInvalidTokenIsRejectedFromCache() {
+        String forgedToken = createTokenWithDifferentSignature();
+
+        assertThat(tokenProvider.resolveAuthentication(forgedToken).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+        assertThat(tokenProvider.resolveAuthentication(forgedToken).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+        assertThat(tokenProvider.validateToken(forgedToken)).isFalse();
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", InvalidTokenCache.CACHE_NAME).tag("result", "hit")
+            .functionCounter().count()).isEqualTo(2);
+        assertThat(invalidTokens(TokenValidationResult.Failure.INVALID_SIGNATURE)).isEqualTo(3);
+    }
+
+    @Test
+    public void testDisabledInvalidTokenCacheIsNotCreated() throws Exception {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getInvalidTokenCache().setEnabled(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenProvider uncachedTokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, registry);
+        uncachedTokenProvider.afterPropertiesSet();
+        String forgedToken = createTokenWithDifferentSignature();
+
+        assertThat(uncachedTokenProvider.resolveAuthentication(forgedToken).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+        assertThat(uncachedTokenProvider.resolveAuthentication(forgedToken).getFailure())
+            .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+        assertThat(registry.find("cache.gets").tag("cache", InvalidTokenCache.CACHE_NAME).meters()).isEmpty();
+        assertThat(registry.get("cache.gets").tag("cache", TokenAuthenticationCache.CACHE_NAME).meters())
+            .isNotEmpty();
+    }
+
+    @Test
+    public void testInvalidTokensAreCountedByCause() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String expiredToken = tokenProvider.createToken(createAuthentication(), false);
+
+        tokenProvider.validateToken(expiredToken);
+        tokenProvider.validateToken(createUnsupportedToken());
+        tokenProvider.validateToken("");
+        tokenProvider.validateToken(null);
+
+        assertThat(invalidTokens(TokenValidationResult.Failure.EXPIRED)).isEqualTo(1);
+        assertThat(invalidTokens(TokenValidationResult.Failure.UNSUPPORTED)).isEqualTo(1);
+        assertThat(invalidTokens(TokenValidationResult.Failure.INVALID)).isEqualTo(2);
+        assertThat(invalidTokens(TokenValidationResult.Failure.MALFORMED)).isZero();
+    }
+
+    @Test
+    public void testJwksModeVerifiesTokensSignedWithPublishedKeys() throws Exception {
+        KeyPair rsaKeyPair = JwksTestUtil.rsaKeyPair();
+        KeyPair ecKeyPair = JwksTestUtil.ecKeyPair();
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        keys.put("rsa-1", rsaKeyPair.getPublic());
+        keys.put("ec-1", ecKeyPair.getPublic());
+        Path jwksFile = Files.createTempFile("jwks", ".json");
+        try {
+            Files.write(jwksFile, JwksTestUtil.jwks(keys).getBytes(StandardCharsets.UTF_8));
+            TokenProvider jwksTokenProvider = createJwksTokenProvider(jwksFile);
+
+            TokenValidationResult rsaResult = jwksTokenProvider.resolveAuthentication(
+                createSignedToken("rsa-1", rsaKeyPair.getPrivate(), SignatureAlgorithm.RS256));
+            TokenValidationResult ecResult = jwksTokenProvider.resolveAuthentication(
+                createSignedToken("ec-1", ecKeyPair.getPrivate(), SignatureAlgorithm.ES256));
+
+            assertThat(rsaResult.isValid()).isTrue();
+            assertThat(rsaResult.getAuthentication().getName()).isEqualTo("anonymous");
+            assertThat(ecResult.isValid()).isTrue();
+        } finally {
+            Files.deleteIfExists(jwksFile);
+        }
+    }
+
+    @Test
+    public void testJwksModeRejectsUnknownKeysAndAlgorithms() throws Exception {
+        KeyPair rsaKeyPair = JwksTestUtil.rsaKeyPair();
+        Path jwksFile = Files.createTempFile("jwks", ".json");
+        try {
+            Files.write(jwksFile, JwksTestUtil.jwks(Collections.singletonMap("rsa-1", rsaKeyPair.getPublic()))
+                .getBytes(StandardCharsets.UTF_8));
+            TokenProvider jwksTokenProvider = createJwksTokenProvider(jwksFile);
+
+            assertThat(jwksTokenProvider.resolveAuthentication(
+                createSignedToken("rsa-2", rsaKeyPair.getPrivate(), SignatureAlgorithm.RS256)).getFailure())
+                .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+            assertThat(jwksTokenProvider.resolveAuthentication(
+                createSignedToken("rsa-1", rsaKeyPair.getPrivate(), SignatureAlgorithm.RS512)).getFailure())
+                .isEqualTo(TokenValidationResult.Failure.INVALID_SIGNATURE);
+            assertThat(jwksTokenProvider.validateToken(createTokenWithDifferentSignature())).isFalse();
+            assertThatThrownBy(() -> jwksTokenProvider.createToken(createAuthentication(), false))
+                .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> jwksTokenProvider.prepareTemplate(createAuthentication().getAuthorities(), false))
+                .isInstanceOf(IllegalStateException.class);
+        } finally {
+            Files.deleteIfExists(jwksFile);
+        }
+    }
+
+    private double invalidTokens(TokenValidationResult.Failure cause) {
+        return meterRegistry.get("security.authentication.invalid-tokens")
+            .tag("cause", cause.name().toLowerCase()).counter().count();
+    }
+
+    private TokenProvider createJwksTokenProvider(Path jwksFile) throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSecurity().getJwks().setEnabled(true);
+        applicationProperties.getSecurity().getJwks().setLocation(jwksFile.toString());
+        TokenProvider jwksTokenProvider = new TokenProvider(new JHipsterProperties(), applicationProperties,
+            new SimpleMeterRegistry());
+        jwksTokenProvider.afterPropertiesSet();
+        return jwksTokenProvider;
+    }
+
+    private String createSignedToken(String kid, Key signingKey, SignatureAlgorithm algorithm) {
+        return Jwts.builder()
+            .setHeaderParam("kid", kid)
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(signingKey, algorithm)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,117 @@
+package com.bookerdimaio.sandbox.service;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ILock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link AuditEventRetentionService}, on H2 which has no partitions.
+ */
+@SpringBootTest(classes = Microservice1App.class)
+public class AuditEventRetentionServiceIT {
+
+    @Autowired
+    private AuditEventRetentionService auditEventRetentionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> {
+            persist("2018-06-30T23:59:59Z");
+            persist("2018-07-01T00:00:00Z");
+            persist("2019-07-14T12:00:00Z");
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.execute(status -> {
+            entityManager.createQuery("select e from PersistentAuditEvent e", PersistentAuditEvent.class)
+                .getResultList().forEach(entityManager::remove);
+            return null;
+        });
+    }
+
+    @Test
+    public void testEventsBeforeTheRetainedMonthsAreDeleted() {
+        auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+
+        List<Instant> dates = entityManager.createQuery("select e.auditEventDate from PersistentAuditEvent e " +
+            "order by e.auditEventDate", Instant.class).getResultList();
+        assertThat(dates).containsExactly(Instant.parse("2018-07-01T00:00:00Z"),
+            Instant.parse("2019-07-14T12:00:00Z"));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_evt_data", Long.class))
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void testRetentionIsSkippedWhileAnotherInstanceAppliesIt() throws Exception {
+        ILock lock = hazelcastInstance.getLock(AuditEventRetentionService.LOCK_NAME);
+        ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+        try {
+            otherInstance.submit((Runnable) lock::lock).get();
+
+            auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+
+            assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_event " +
+                "where principal = 'retention-user'", Long.class)).isEqualTo(3);
+        } finally {
+            otherInstance.submit((Runnable) lock::unlock).get();
+            otherInstance.shutdown();
+        }
+        auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+        auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_event " +
+            "where principal = 'retention-user'", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void testPartitionName() {
+        assertThat(AuditEventRetentionService.partitionName(YearMonth.of(2019, 7)))
+            .isEqualTo("jhi_persistent_audit_event_2019_07");
+    }
+
+    private void persist(String date) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal("retention-user");
+        event.setAuditEventDate(Instant.parse(date));
+        event.setAuditEventType("AUTHENTICATION_SUCCESS");
+        event.getData().put("remoteAddress", "127.0.0.1");
+        entityManager.persist(event);
+    }
+}
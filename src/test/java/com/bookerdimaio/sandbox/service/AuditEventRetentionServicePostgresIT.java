@@ -0,0 +1,138 @@
+package com.bookerdimaio.sandbox.service;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the partitions maintained by {@link AuditEventRetentionService}, on PostgreSQL 11 or later.
+ * <p>
+ * They only run when the URL of a scratch database is given, for instance with Docker:
+ * <pre>
+ * docker run -d -p 5433:5432 -e POSTGRES_PASSWORD=postgres postgres:11
+ * ./mvnw verify -Dit.test=AuditEventRetentionServicePostgresIT \
+ *     -Dtest.postgresql.url=jdbc:postgresql://localhost:5433/postgres
+ * </pre>
+ * The user and password default to {@code postgres}, and are set by {@code test.postgresql.username} and
+ * {@code test.postgresql.password}. The database is migrated by Liquibase and keeps the test partitions, use a new
+ * one for each run.
+ */
+@EnabledIfSystemProperty(named = "test.postgresql.url", matches = ".+")
+@SpringBootTest(classes = Microservice1App.class, properties = {
+    "spring.datasource.url=${test.postgresql.url}",
+    "spring.datasource.username=${test.postgresql.username:postgres}",
+    "spring.datasource.password=${test.postgresql.password:postgres}",
+    "spring.jpa.database=POSTGRESQL",
+    "spring.jpa.database-platform=io.github.jhipster.domain.util.FixedPostgreSQL95Dialect",
+    "spring.jpa.properties.hibernate.hbm2ddl.auto=none"
+})
+public class AuditEventRetentionServicePostgresIT {
+
+    private static final String PRINCIPAL = "retention-postgres-user";
+
+    @Autowired
+    private AuditEventRetentionService auditEventRetentionService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        applicationProperties.getAudit().getRetention().setMode(ApplicationProperties.Audit.Retention.Mode.DROP);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in " +
+                "(select event_id from jhi_persistent_audit_event where principal = ?)", PRINCIPAL);
+            jdbcTemplate.update("delete from jhi_persistent_audit_event where principal = ?", PRINCIPAL);
+            return null;
+        });
+    }
+
+    @Test
+    public void testPartitionsAreCreatedAndDroppedIdempotently() {
+        insert(-1, "2019-01-15T12:00:00Z");
+        insert(-2, "2019-07-14T12:00:00Z");
+
+        auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+        auditEventRetentionService.applyRetention(Instant.parse("2019-07-15T10:00:00Z"));
+
+        assertThat(partitions()).contains(partition(2019, 7), partition(2019, 8), partition(2019, 9));
+        assertThat(count(partition(2019, 7))).isEqualTo(1);
+        assertThat(count(AuditEventRetentionService.DEFAULT_PARTITION + " where principal = '" + PRINCIPAL + "'"))
+            .isEqualTo(1);
+
+        auditEventRetentionService.applyRetention(Instant.parse("2020-09-15T10:00:00Z"));
+        auditEventRetentionService.applyRetention(Instant.parse("2020-09-15T10:00:00Z"));
+
+        assertThat(partitions()).doesNotContain(partition(2019, 7), partition(2019, 8))
+            .contains(partition(2019, 9), partition(2020, 9));
+        assertThat(count("jhi_persistent_audit_event where principal = '" + PRINCIPAL + "'")).isZero();
+        assertThat(count("jhi_persistent_audit_evt_data where event_id in (-1, -2)")).isZero();
+    }
+
+    @Test
+    public void testExpiredPartitionsAreArchived() {
+        applicationProperties.getAudit().getRetention().setMode(ApplicationProperties.Audit.Retention.Mode.ARCHIVE);
+        auditEventRetentionService.applyRetention(Instant.parse("2017-03-15T10:00:00Z"));
+        insert(-3, "2017-03-14T12:00:00Z");
+
+        auditEventRetentionService.applyRetention(Instant.parse("2018-05-15T10:00:00Z"));
+        auditEventRetentionService.applyRetention(Instant.parse("2018-05-15T10:00:00Z"));
+
+        assertThat(partitions()).doesNotContain(partition(2017, 3));
+        assertThat(count(partition(2017, 3))).isEqualTo(1);
+        assertThat(count("jhi_persistent_audit_evt_data_2017_03 where event_id = -3")).isEqualTo(1);
+        assertThat(count("jhi_persistent_audit_evt_data where event_id = -3")).isZero();
+    }
+
+    private void insert(long id, String date) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("insert into jhi_persistent_audit_event (event_id, principal, event_date, " +
+                "event_type) values (?, ?, ?, 'AUTHENTICATION_SUCCESS')", ps -> {
+                ps.setLong(1, id);
+                ps.setString(2, PRINCIPAL);
+                ps.setTimestamp(3, Timestamp.from(Instant.parse(date)), utc);
+            });
+            jdbcTemplate.update("insert into jhi_persistent_audit_evt_data (event_id, name, value) " +
+                "values (?, 'remoteAddress', '127.0.0.1')", id);
+            return null;
+        });
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i " +
+            "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent where p.relname = ?",
+            String.class, AuditEventRetentionService.PARTITIONED_TABLE);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+
+    private static String partition(int year, int month) {
+        return AuditEventRetentionService.partitionName(YearMonth.of(year, month));
+    }
+}
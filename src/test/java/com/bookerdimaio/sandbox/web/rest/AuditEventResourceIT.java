@@ -0,0 +1,249 @@
+package com.bookerdimaio.sandbox.web.rest;
+
+import com.bookerdimaio.sandbox.Microservice1App;
+import com.bookerdimaio.sandbox.config.ApplicationProperties;
+import com.bookerdimaio.sandbox.config.audit.AuditEventConverter;
+import com.bookerdimaio.sandbox.domain.PersistentAuditEvent;
+import com.bookerdimaio.sandbox.repository.AuditEventStreamRepository;
+import com.bookerdimaio.sandbox.security.AuthoritiesConstants;
+import com.bookerdimaio.sandbox.web.rest.errors.ExceptionTranslator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the {@link AuditEventResource} REST controller.
+ */
+@SpringBootTest(classes = Microservice1App.class)
+public class AuditEventResourceIT {
+
+    private static final Instant START = Instant.parse("2019-07-01T10:00:00Z");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AuditEventConverter auditEventConverter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    @Qualifier("auditEventStreamExecutor")
+    private ThreadPoolTaskExecutor auditEventStreamExecutor;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    private ApplicationProperties applicationProperties;
+
+    private TransactionTemplate transactionTemplate;
+
+    private MockMvc restAuditEventMockMvc;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        applicationProperties = new ApplicationProperties();
+        // Small pages, so that the events are read by several queries
+        applicationProperties.getAudit().setStreamPageSize(2);
+        applicationProperties.getAudit().setStreamFetchSize(1);
+        AuditEventResource auditEventResource = new AuditEventResource(
+            new AuditEventStreamRepository(dataSource, transactionManager, applicationProperties),
+            auditEventConverter, objectMapper, auditEventStreamExecutor, applicationProperties);
+        restAuditEventMockMvc = MockMvcBuilders.standaloneSetup(auditEventResource)
+            .setControllerAdvice(exceptionTranslator)
+            .build();
+
+        transactionTemplate.execute(status -> {
+            for (int i = 0; i < 5; i++) {
+                PersistentAuditEvent event = new PersistentAuditEvent();
+                event.setPrincipal(i % 2 == 0 ? "first-user" : "second-user");
+                event.setAuditEventDate(START.plusSeconds(i));
+                event.setAuditEventType("AUTHENTICATION_SUCCESS");
+                event.getData().put("remoteAddress", "127.0.0." + i);
+                event.getData().put("sessionId", "session" + i);
+                entityManager.persist(event);
+            }
+            // Two events at the same date, ordered by identifier
+            PersistentAuditEvent event = new PersistentAuditEvent();
+            event.setPrincipal("first-user");
+            event.setAuditEventDate(START.plusSeconds(4));
+            event.setAuditEventType("AUTHENTICATION_FAILURE");
+            entityManager.persist(event);
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.execute(status -> {
+            entityManager.createQuery("select e from PersistentAuditEvent e", PersistentAuditEvent.class)
+                .getResultList().forEach(entityManager::remove);
+            return null;
+        });
+    }
+
+    @Test
+    public void testStreamAllAuditEvents() throws Exception {
+        List<JsonNode> events = stream("/api/audits/stream");
+
+        assertThat(events).extracting(event -> event.get("principal").asText() + " " +
+            event.get("timestamp").asText() + " " + event.get("type").asText())
+            .containsExactly(
+                "first-user 2019-07-01T10:00:00Z AUTHENTICATION_SUCCESS",
+                "first-user 2019-07-01T10:00:02Z AUTHENTICATION_SUCCESS",
+                "first-user 2019-07-01T10:00:04Z AUTHENTICATION_SUCCESS",
+                "first-user 2019-07-01T10:00:04Z AUTHENTICATION_FAILURE",
+                "second-user 2019-07-01T10:00:01Z AUTHENTICATION_SUCCESS",
+                "second-user 2019-07-01T10:00:03Z AUTHENTICATION_SUCCESS");
+        assertThat(events.get(1).get("data").get("remoteAddress").asText()).isEqualTo("127.0.0.2");
+        assertThat(events.get(1).get("data").get("sessionId").asText()).isEqualTo("session2");
+        assertThat(events.get(3).has("data")).isFalse();
+    }
+
+    @Test
+    public void testStreamAuditEventsOfPrincipalInDateRange() throws Exception {
+        List<JsonNode> events = stream("/api/audits/stream?principal=first-user" +
+            "&from=2019-07-01T10:00:02Z&to=2019-07-01T10:00:04Z");
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).get("data").get("remoteAddress").asText()).isEqualTo("127.0.0.2");
+    }
+
+    @Test
+    public void testStreamWithoutEvents() throws Exception {
+        assertThat(stream("/api/audits/stream?principal=unknown")).isEmpty();
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void testStreamHasItsOwnTimeout() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        MvcResult result = mockMvc.perform(get("/api/audits/stream?principal=second-user"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // The configured stream timeout instead of the default async timeout of the container
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(TimeUnit.HOURS.toMillis(1));
+        assertThat(mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString().split("\n")).hasSize(2);
+    }
+
+    @Test
+    public void testOpenStreamsDoNotBlockOtherRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AuditEventStreamRepository blockingRepository =
+            new AuditEventStreamRepository(dataSource, transactionManager, applicationProperties) {
+
+                @Override
+                public void forEach(String principal, Instant from, Instant to,
+                                    Consumer<PersistentAuditEvent> action) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.forEach(principal, from, to, action);
+                }
+            };
+        ThreadPoolTaskExecutor streamExecutor = new ThreadPoolTaskExecutor();
+        streamExecutor.setCorePoolSize(2);
+        streamExecutor.setMaxPoolSize(2);
+        streamExecutor.setQueueCapacity(0);
+        streamExecutor.initialize();
+        try {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuditEventResource(blockingRepository,
+                auditEventConverter, objectMapper, streamExecutor, applicationProperties))
+                .setControllerAdvice(exceptionTranslator)
+                .build();
+            MvcResult first = mockMvc.perform(get("/api/audits/stream?principal=first-user"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            MvcResult second = mockMvc.perform(get("/api/audits/stream?principal=second-user"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            // A third stream is refused at once, and the application task executor is still free
+            mockMvc.perform(get("/api/audits/stream"))
+                .andExpect(status().isServiceUnavailable());
+            CompletableFuture.runAsync(() -> { }, taskExecutor).get(5, TimeUnit.SECONDS);
+
+            release.countDown();
+            assertThat(mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n")).hasSize(4);
+            assertThat(mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n")).hasSize(2);
+        } finally {
+            release.countDown();
+            streamExecutor.shutdown();
+        }
+    }
+
+    private List<JsonNode> stream(String url) throws Exception {
+        MvcResult result = restAuditEventMockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = restAuditEventMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(AuditEventResource.APPLICATION_NDJSON))
+            .andReturn().getResponse().getContentAsString();
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                events.add(objectMapper.readTree(line));
+            }
+        }
+        assertThat(body.isEmpty() || body.endsWith("\n")).isTrue();
+        return events;
+    }
+}